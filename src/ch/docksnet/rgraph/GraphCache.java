@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import ch.docksnet.rgraph.fqn.FQN;
+import ch.docksnet.rgraph.method.SourceTargetPair;
+import ch.docksnet.utils.GraphFile;
+import ch.docksnet.utils.IncrementableSet;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the computed relationships of a diagram on disk, so a diagram of unchanged sources is not resolved again,
+ * e.g. after a restart of the IDE.
+ * <p>
+ * An entry is valid as long as all the files the relationships were resolved from are unchanged. A file is unchanged
+ * if its length and time stamp are the same, or otherwise if the hash of its content is the same. Files with unsaved
+ * changes are never cached, since their content on disk does not match the PSI. A directory stands for the listing of
+ * the Java files below it, so adding, moving or deleting one of them invalidates the entry as well. Reading and writing entries does IO
+ * and must not happen in a read action, only the mapping between elements and entries does.
+ * <p>
+ * The least recently used entries are evicted, once there are more than {@link #MAX_FILES} of them or they take more
+ * than {@link #MAX_BYTES}.
+ */
+public class GraphCache {
+
+    private static final Logger LOG = Logger.getInstance(GraphCache.class);
+    private static final int MAX_FILES = 200;
+    private static final long MAX_BYTES = 20L * 1024 * 1024;
+
+    private final Path directory;
+
+    public GraphCache(Project project) {
+        this.directory = Paths.get(PathManager.getSystemPath(), "rgraph", project.getLocationHash());
+    }
+
+    public static GraphCache getInstance(Project project) {
+        return ServiceManager.getService(project, GraphCache.class);
+    }
+
+    /**
+     * Returns the graph stored for the key, or null if there is none or one of its files has changed. A corrupt
+     * entry is deleted.
+     */
+    @Nullable
+    public GraphFile load(String key) {
+        Path path = getPath(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            GraphFile graph = GraphFile.read(path, key, GraphCache::isUnchanged);
+            if (graph != null) {
+                GraphFile.touch(path);
+            }
+            return graph;
+        } catch (IOException e) {
+            LOG.debug("Cannot read cached graph " + path, e);
+            delete(path);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the relationships of a loaded graph between the given elements, or null if the graph was stored for
+     * other elements. Is called in a read action.
+     */
+    @Nullable
+    public static IncrementableSet<SourceTargetPair> toRelationships(GraphFile graph, Collection<PsiElement> elements) {
+        Map<String, PsiElement> elementsById = getElementsById(elements);
+        if (elementsById == null || elementsById.size() != graph.getIds().size()) {
+            return null;
+        }
+        List<PsiElement> cachedElements = new ArrayList<>();
+        for (String id : graph.getIds()) {
+            PsiElement element = elementsById.get(id);
+            if (element == null) {
+                return null;
+            }
+            cachedElements.add(element);
+        }
+
+        IncrementableSet<SourceTargetPair> relationships = new IncrementableSet<>();
+        for (int i = 0; i < graph.getEdgeCount(); i++) {
+            PsiElement source = cachedElements.get(graph.getSource(i));
+            PsiElement target = cachedElements.get(graph.getTarget(i));
+            relationships.increment(new SourceTargetPair(source, target), graph.getCount(i));
+        }
+        return relationships;
+    }
+
+    /**
+     * Prepares an entry of the relationships between the given elements, which were resolved from {@code files}.
+     * Relationships to other elements are left out, since they are not shown in the diagram anyway. Is called in
+     * the read action the relationships were resolved in, so the recorded state of the files matches the PSI.
+     *
+     * @return null if the relationships cannot be cached.
+     */
+    @Nullable
+    public static Entry createEntry(String key, Collection<PsiElement> elements,
+                                    IncrementableSet<SourceTargetPair> relationships, Collection<VirtualFile> files) {
+        Map<String, PsiElement> elementsById = getElementsById(elements);
+        if (elementsById == null || hasUnsavedChanges(files)) {
+            return null;
+        }
+        Map<PsiElement, Integer> indices = new HashMap<>();
+        for (PsiElement element : elementsById.values()) {
+            indices.put(element, indices.size());
+        }
+        GraphFile graph = new GraphFile(new ArrayList<>(elementsById.keySet()));
+        relationships.forEach((pair, count) -> {
+            Integer source = indices.get(pair.getSource());
+            Integer target = indices.get(pair.getTarget());
+            if (source != null && target != null) {
+                graph.addEdge(source, target, count);
+            }
+        });
+        return new Entry(key, graph, files);
+    }
+
+    /**
+     * Hashes the files of the entry and writes it. Nothing is written if one of the files changed after the
+     * relationships were resolved.
+     */
+    public void store(Entry entry) {
+        Path path = getPath(entry.key);
+        try {
+            for (int i = 0; i < entry.files.size(); i++) {
+                VirtualFile file = entry.files.get(i);
+                if (file.isDirectory()) {
+                    // the listing was taken together with the relationships, a later change shows on load
+                    entry.graph.addDependency(
+                            new GraphFile.Dependency(file.getUrl(), entry.lengths[i], 0, entry.hashes[i]));
+                    continue;
+                }
+                if (!file.isValid() || file.getLength() != entry.lengths[i]
+                        || file.getTimeStamp() != entry.timeStamps[i]
+                        || FileDocumentManager.getInstance().isFileModified(file)) {
+                    return;
+                }
+                entry.graph.addDependency(
+                        new GraphFile.Dependency(file.getUrl(), entry.lengths[i], entry.timeStamps[i], hash(file)));
+            }
+            entry.graph.write(path, entry.key);
+            GraphFile.evict(this.directory, MAX_FILES, MAX_BYTES);
+        } catch (IOException e) {
+            LOG.debug("Cannot write cached graph " + path, e);
+        }
+    }
+
+    private Path getPath(String key) {
+        return this.directory.resolve(GraphFile.getFileName(key));
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.debug("Cannot delete cached graph " + path, e);
+        }
+    }
+
+    private static boolean hasUnsavedChanges(Collection<VirtualFile> files) {
+        FileDocumentManager documentManager = FileDocumentManager.getInstance();
+        for (VirtualFile file : files) {
+            if (documentManager.isFileModified(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares a file of a cached entry with the current one. The content is only hashed, if the time stamp of the
+     * file changed.
+     */
+    private static boolean isUnchanged(GraphFile.Dependency dependency) throws IOException {
+        VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(dependency.getPath());
+        if (file == null || !file.isValid()) {
+            return false;
+        }
+        if (file.isDirectory()) {
+            List<String> listing = getListing(file);
+            return listing.size() == dependency.getLength() && hash(listing) == dependency.getHash();
+        }
+        if (FileDocumentManager.getInstance().isFileModified(file)) {
+            return false;
+        }
+        if (file.getLength() != dependency.getLength()) {
+            return false;
+        }
+        return file.getTimeStamp() == dependency.getTimeStamp() || hash(file) == dependency.getHash();
+    }
+
+    private static long hash(VirtualFile file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(file.contentsToByteArray());
+        return crc.getValue();
+    }
+
+    private static long hash(List<String> listing) {
+        CRC32 crc = new CRC32();
+        crc.update(String.join("\n", listing).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Returns the sorted paths of the Java files below the directory, relative to it.
+     */
+    private static List<String> getListing(VirtualFile directory) {
+        List<String> result = new ArrayList<>();
+        VfsUtilCore.iterateChildrenRecursively(directory, null, file -> {
+            if (!file.isDirectory() && JavaFileType.INSTANCE.equals(file.getFileType())) {
+                result.add(VfsUtilCore.getRelativePath(file, directory, '/'));
+            }
+            return true;
+        });
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Identifies the elements by their FQN, which stays the same across sessions.
+     *
+     * @return null if an element has no FQN or two elements have the same one.
+     */
+    @Nullable
+    private static Map<String, PsiElement> getElementsById(Collection<PsiElement> elements) {
+        Map<String, PsiElement> result = new LinkedHashMap<>();
+        for (PsiElement element : elements) {
+            FQN fqn = PsiUtils.getFqn(element);
+            if (fqn == null || result.put(fqn.getFQN(), element) != null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The relationships of a diagram to store, and the state of the files they were resolved from.
+     */
+    public static class Entry {
+        private final String key;
+        private final GraphFile graph;
+        private final List<VirtualFile> files;
+        private final long[] lengths;
+        private final long[] timeStamps;
+        private final long[] hashes;
+
+        private Entry(String key, GraphFile graph, Collection<VirtualFile> files) {
+            this.key = key;
+            this.graph = graph;
+            this.files = new ArrayList<>(files);
+            this.lengths = new long[this.files.size()];
+            this.timeStamps = new long[this.files.size()];
+            this.hashes = new long[this.files.size()];
+            for (int i = 0; i < this.files.size(); i++) {
+                VirtualFile file = this.files.get(i);
+                if (file.isDirectory()) {
+                    List<String> listing = getListing(file);
+                    this.lengths[i] = listing.size();
+                    this.hashes[i] = hash(listing);
+                } else {
+                    this.lengths[i] = file.getLength();
+                    this.timeStamps[i] = file.getTimeStamp();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import ch.docksnet.rgraph.method.SourceTargetPair;
+import ch.docksnet.utils.IncrementableSet;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Result of a graph computation in the background. It is applied to the {@link ReferenceDiagramDataModel} as a
+ * whole, so the diagram never shows a partially computed graph.
+ */
+class GraphUpdate {
+
+    private final boolean rebuild;
+    private final Collection<PsiElement> elements;
+    private final Collection<PsiElement> changedMembers;
+    private final IncrementableSet<SourceTargetPair> relationships;
+    private final IncrementableSet<SourceTargetPair> resolvedRelationships;
+    private final boolean outerReferencesChanged;
+    private final GraphCache.Entry cacheEntry;
+
+    private GraphUpdate(boolean rebuild, Collection<PsiElement> elements, Collection<PsiElement> changedMembers,
+                        IncrementableSet<SourceTargetPair> relationships,
+                        IncrementableSet<SourceTargetPair> resolvedRelationships, boolean outerReferencesChanged,
+                        GraphCache.Entry cacheEntry) {
+        this.rebuild = rebuild;
+        this.elements = elements;
+        this.changedMembers = changedMembers;
+        this.relationships = relationships;
+        this.resolvedRelationships = resolvedRelationships;
+        this.outerReferencesChanged = outerReferencesChanged;
+        this.cacheEntry = cacheEntry;
+    }
+
+    /**
+     * Replaces all nodes and edges of the graph. The {@code cacheEntry}, if any, is stored once the update is applied.
+     */
+    static GraphUpdate rebuild(Collection<PsiElement> elements, IncrementableSet<SourceTargetPair> relationships,
+                               @Nullable GraphCache.Entry cacheEntry) {
+        return new GraphUpdate(true, elements, Collections.emptyList(), relationships, relationships, true,
+                cacheEntry);
+    }
+
+    /**
+     * Replaces the edges going out from {@code changedMembers} and keeps the rest of the graph. The relationships of
+     * the other members are taken over from {@code previous}, the relationships resolved before.
+     */
+    static GraphUpdate incremental(Collection<PsiElement> changedMembers,
+                                   IncrementableSet<SourceTargetPair> relationships,
+                                   IncrementableSet<SourceTargetPair> previous,
+                                   boolean outerReferencesChanged) {
+        IncrementableSet<SourceTargetPair> resolvedRelationships = new IncrementableSet<>();
+        previous.forEach((sourceTargetPair, count) -> {
+            if (!changedMembers.contains(sourceTargetPair.getSource())) {
+                resolvedRelationships.increment(sourceTargetPair, count);
+            }
+        });
+        relationships.forEach(resolvedRelationships::increment);
+        return new GraphUpdate(false, Collections.emptyList(), changedMembers, relationships, resolvedRelationships,
+                outerReferencesChanged, null);
+    }
+
+    boolean isRebuild() {
+        return this.rebuild;
+    }
+
+    Collection<PsiElement> getElements() {
+        return this.elements;
+    }
+
+    Collection<PsiElement> getChangedMembers() {
+        return this.changedMembers;
+    }
+
+    IncrementableSet<SourceTargetPair> getRelationships() {
+        return this.relationships;
+    }
+
+    /**
+     * Returns the relationships between all resolved elements, also those of the categories which are not shown.
+     */
+    IncrementableSet<SourceTargetPair> getResolvedRelationships() {
+        return this.resolvedRelationships;
+    }
+
+    /**
+     * Returns whether the outer references of the graph may have changed and have to be computed again.
+     */
+    boolean isOuterReferencesChanged() {
+        return this.outerReferencesChanged;
+    }
+
+    @Nullable
+    GraphCache.Entry getCacheEntry() {
+        return this.cacheEntry;
+    }
+
+}
@@ -16,118 +16,48 @@
 
 package ch.docksnet.rgraph;
 
+import ch.docksnet.rgraph.method.ReferenceEdge;
 import ch.docksnet.rgraph.method.ReferenceNode;
+import ch.docksnet.utils.lcom.LCOMGraph;
 import ch.docksnet.utils.lcom.LCOMNode;
 import com.intellij.diagram.DiagramEdge;
 import com.intellij.diagram.DiagramNode;
-import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiClassInitializer;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiField;
-import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.PsiMethod;
-import com.intellij.psi.impl.file.PsiJavaDirectoryImpl;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * @author Stefan Zeller
  */
 class LCOMConverter {
 
-    private final ReferenceDiagramVfsResolver vfsResolver = new ReferenceDiagramVfsResolver();
-    private final Map<String, LCOMNode> lcomNodeRegistry = new HashMap<>();
-
     /**
-     * Returns nodes representating a directed graph regarding to given {@code nodes} and {@code edges}.
+     * Returns a directed graph regarding to given {@code nodes} and {@code edges}. Edges whose source or target is not
+     * part of {@code nodes} are skipped.
      */
-    Collection<LCOMNode> convert(Collection<? extends DiagramNode<PsiElement>> nodes, Collection<? extends
+    LCOMGraph<ReferenceNode> convert(Collection<? extends DiagramNode<PsiElement>> nodes, Collection<? extends
             DiagramEdge<PsiElement>> edges) {
+        LCOMGraph.Builder<ReferenceNode> builder = new LCOMGraph.Builder<>();
         for (DiagramNode<PsiElement> node : nodes) {
-            String fqn = this.vfsResolver.getQualifiedName(node.getIdentifyingElement());
-            LCOMNode.Type type = resolveType(node);
-            this.lcomNodeRegistry.put(fqn, new LCOMNode(fqn, type, (ReferenceNode) node));
+            builder.addNode((ReferenceNode) node, resolveType(node));
         }
 
         for (DiagramEdge<PsiElement> edge : edges) {
-            ReferenceNode source = (ReferenceNode) edge.getSource();
-            ReferenceNode target = (ReferenceNode) edge.getTarget();
-            String sourceFqn = this.vfsResolver.getQualifiedName(source.getIdentifyingElement());
-            String targetFqn = this.vfsResolver.getQualifiedName(target.getIdentifyingElement());
+            int source = builder.idOf((ReferenceNode) edge.getSource());
+            int target = builder.idOf((ReferenceNode) edge.getTarget());
 
-            if (isSourceOrTargetNotRegistered(sourceFqn, targetFqn)) {
+            if (source < 0 || target < 0) {
                 continue;
             }
 
-            this.lcomNodeRegistry.get(sourceFqn).addCallee(this.lcomNodeRegistry.get(targetFqn));
+            builder.addEdge(source, target, ((ReferenceEdge) edge).getCount());
         }
 
-        return this.lcomNodeRegistry.values();
-    }
-
-    private boolean isSourceOrTargetNotRegistered(String sourceFqn, String targetFqn) {
-        return this.lcomNodeRegistry.get(sourceFqn) == null || this.lcomNodeRegistry.get(targetFqn) == null;
+        return builder.build();
     }
 
     private LCOMNode.Type resolveType(DiagramNode<PsiElement> referenceNode) {
-        PsiElementDispatcher<LCOMNode.Type> elementDispatcher = new PsiElementDispatcher<LCOMNode.Type>() {
-
-            @Override
-            public LCOMNode.Type processClass(PsiClass psiClass) {
-                return LCOMNode.Type.Class;
-            }
-
-            @Override
-            public LCOMNode.Type processMethod(PsiMethod psiMethod) {
-                if (psiMethod.isConstructor()) {
-                    return LCOMNode.Type.Constructur;
-                } else {
-                    return LCOMNode.Type.Method;
-                }
-            }
-
-            @Override
-            public LCOMNode.Type processField(PsiField psiField) {
-                if (psiField.hasModifierProperty("static")) {
-                    return LCOMNode.Type.Constant;
-                } else {
-                    return LCOMNode.Type.Field;
-                }
-            }
-
-            @Override
-            public LCOMNode.Type processClassInitializer(PsiClassInitializer psiClassInitializer) {
-                return LCOMNode.Type.ClassInitializer;
-            }
-
-            @Override
-            public LCOMNode.Type processInnerClass(PsiClass innerClass) {
-                return LCOMNode.Type.InnerClass;
-            }
-
-            @Override
-            public LCOMNode.Type processStaticInnerClass(PsiClass staticInnerClass) {
-                return LCOMNode.Type.StaticInnerClass;
-            }
-
-            @Override
-            public LCOMNode.Type processEnum(PsiClass anEnum) {
-                return LCOMNode.Type.Enum;
-            }
-
-            @Override
-            public LCOMNode.Type processPackage(PsiJavaDirectoryImpl aPackage) {
-                return LCOMNode.Type.Package;
-            }
-
-            @Override
-            public LCOMNode.Type processFile(PsiJavaFile psiElement) {
-                return LCOMNode.Type.File;
-            }
-        };
-        return elementDispatcher.dispatch(referenceNode.getIdentifyingElement());
+        return ((ReferenceNode) referenceNode).getDescriptor().getKind();
     }
 
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import ch.docksnet.rgraph.fqn.FQN;
+import ch.docksnet.utils.lcom.LCOMNode;
+import com.intellij.openapi.util.Iconable;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassInitializer;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.impl.file.PsiJavaDirectoryImpl;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.uml.UmlIcons;
+
+import javax.swing.*;
+
+/**
+ * Describes an element of a diagram by its kind, FQN, presentable name, category and icon. A descriptor is computed once per
+ * element and cached until the file of the element changes, so the diagram does not dispatch on the PSI over and
+ * over again while it is rendered and updated.
+ */
+public class NodeDescriptor {
+
+    private static final PsiElementDispatcher<LCOMNode.Type> KIND_DISPATCHER =
+            new PsiElementDispatcher<LCOMNode.Type>() {
+
+                @Override
+                public LCOMNode.Type processClass(PsiClass psiClass) {
+                    return LCOMNode.Type.Class;
+                }
+
+                @Override
+                public LCOMNode.Type processMethod(PsiMethod psiMethod) {
+                    if (psiMethod.isConstructor()) {
+                        return LCOMNode.Type.Constructur;
+                    } else {
+                        return LCOMNode.Type.Method;
+                    }
+                }
+
+                @Override
+                public LCOMNode.Type processField(PsiField psiField) {
+                    if (psiField.hasModifierProperty("static")) {
+                        return LCOMNode.Type.Constant;
+                    } else {
+                        return LCOMNode.Type.Field;
+                    }
+                }
+
+                @Override
+                public LCOMNode.Type processClassInitializer(PsiClassInitializer psiClassInitializer) {
+                    return LCOMNode.Type.ClassInitializer;
+                }
+
+                @Override
+                public LCOMNode.Type processInnerClass(PsiClass innerClass) {
+                    return LCOMNode.Type.InnerClass;
+                }
+
+                @Override
+                public LCOMNode.Type processStaticInnerClass(PsiClass staticInnerClass) {
+                    return LCOMNode.Type.StaticInnerClass;
+                }
+
+                @Override
+                public LCOMNode.Type processEnum(PsiClass anEnum) {
+                    return LCOMNode.Type.Enum;
+                }
+
+                @Override
+                public LCOMNode.Type processPackage(PsiJavaDirectoryImpl aPackage) {
+                    return LCOMNode.Type.Package;
+                }
+
+                @Override
+                public LCOMNode.Type processFile(PsiJavaFile psiElement) {
+                    return LCOMNode.Type.File;
+                }
+            };
+
+    private final PsiElement psiElement;
+    private final LCOMNode.Type kind;
+    private final FQN fqn;
+    private final String presentableName;
+    private final int categoryMask;
+    private volatile Icon icon;
+
+    private NodeDescriptor(PsiElement psiElement) {
+        this.psiElement = psiElement;
+        this.kind = KIND_DISPATCHER.dispatch(psiElement);
+        this.fqn = PsiUtils.computeFqn(psiElement);
+        this.presentableName = PsiUtils.computePresentableName(psiElement);
+        this.categoryMask = ReferenceUmlCategoryManager.getCategoryMask(psiElement);
+    }
+
+    public static NodeDescriptor of(PsiElement psiElement) {
+        return CachedValuesManager.getCachedValue(psiElement, () -> {
+            PsiFile file = psiElement.getContainingFile();
+            Object dependency = file != null ? file : PsiModificationTracker.MODIFICATION_COUNT;
+            return CachedValueProvider.Result.create(new NodeDescriptor(psiElement), dependency);
+        });
+    }
+
+    public LCOMNode.Type getKind() {
+        return this.kind;
+    }
+
+    public FQN getFqn() {
+        return this.fqn;
+    }
+
+    public String getPresentableName() {
+        return this.presentableName;
+    }
+
+    /**
+     * Returns the mask of the diagram category of the element, see {@link ReferenceUmlCategoryManager}.
+     */
+    public int getCategoryMask() {
+        return this.categoryMask;
+    }
+
+    /**
+     * Returns the icon of the element. It is only looked up when it is painted the first time, since the lookup is
+     * costly and not needed to compute the graph.
+     */
+    public Icon getIcon() {
+        Icon result = this.icon;
+        if (result == null) {
+            if (this.kind == LCOMNode.Type.Constructur) {
+                result = UmlIcons.Constructor;
+            } else {
+                result = this.psiElement.getIcon(Iconable.ICON_FLAG_VISIBILITY);
+            }
+            this.icon = result;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import com.intellij.compiler.CompilerReferenceService;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopes;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Finds the references to an element from the production sources of a project, for the outer references. If the
+ * compiler reference index is enabled, only the files that reference the element according to the index are searched,
+ * together with the files changed since the last build. Otherwise, or if the index knows nothing about the element,
+ * the whole production scope is searched.
+ */
+public class OuterReferenceSearch {
+
+    public static Collection<PsiReference> search(PsiElement element, Project project) {
+        GlobalSearchScope scope = GlobalSearchScopes.projectProductionScope(project);
+        GlobalSearchScope scopeWithCodeReferences = getScopeWithCodeReferences(element, project);
+        if (scopeWithCodeReferences != null) {
+            scope = scope.intersectWith(scopeWithCodeReferences);
+        }
+        return ReferencesSearch.search(element, scope).findAll();
+    }
+
+    @Nullable
+    private static GlobalSearchScope getScopeWithCodeReferences(PsiElement element, Project project) {
+        if (!CompilerReferenceService.isEnabled()) {
+            return null;
+        }
+        return CompilerReferenceService.getInstance(project).getScopeWithCodeReferences(element);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Runs a task per element concurrently on the shared pool of the platform, so no threads are owned by the plugin.
+ * Each task runs in its own read action which gives way to write actions: if a write action is about to start, the
+ * tasks are cancelled together with the calling computation.
+ */
+public class ParallelSearch {
+
+    public static <T> void forEach(Collection<T> elements, Consumer<T> task) {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        boolean finished = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(new ArrayList<>(elements),
+                indicator, element -> runInReadAction(element, task, indicator));
+        if (!finished) {
+            throw new ProcessCanceledException();
+        }
+    }
+
+    private static <T> boolean runInReadAction(T element, Consumer<T> task, @Nullable ProgressIndicator indicator) {
+        return ProgressManager.getInstance()
+                .runInReadActionWithWriteActionPriority(() -> task.accept(element), indicator);
+    }
+
+}
@@ -23,6 +23,8 @@ public class ProjectService {
     private final ReferenceListToolWindow otherHierarchieReferences;
     private final ReferenceListToolWindow sameHierarchieReferences;
     private final ReferenceListToolWindow samePackageReferences;
+    private Runnable outerReferencesRequest = () -> {
+    };
 
     public ProjectService(Project project) {
         this.otherHierarchieReferences = new ReferenceListToolWindow("Other Hierarchy", project);
@@ -42,4 +44,22 @@ public class ProjectService {
         return this.samePackageReferences;
     }
 
+    /**
+     * Sets what computes the outer references shown in the tool window, i.e. those of the last updated diagram.
+     */
+    public void setOuterReferencesRequest(Runnable outerReferencesRequest) {
+        this.outerReferencesRequest = outerReferencesRequest;
+    }
+
+    public void removeOuterReferencesRequest(Runnable outerReferencesRequest) {
+        if (this.outerReferencesRequest == outerReferencesRequest) {
+            this.outerReferencesRequest = () -> {
+            };
+        }
+    }
+
+    public void requestOuterReferences() {
+        this.outerReferencesRequest.run();
+    }
+
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects PSI changes between two refreshes of a {@link ReferenceDiagramDataModel} and classifies them, so that
+ * the data model only has to recompute what is affected by the changes.
+ * <ul>
+ * <li>Changes inside the body of a member only affect the references going out from that member.</li>
+ * <li>Changes in files that do not contribute to the graph only affect the outer references.</li>
+ * <li>Everything else is a structural change and requires a full rebuild.</li>
+ * </ul>
+ */
+class PsiChangeCollector extends PsiTreeChangeAdapter {
+
+    private final ReferenceDiagramDataModel model;
+
+    private final Set<PsiElement> changedMembers = new HashSet<>();
+    private boolean structureChanged = true;
+    private boolean outerReferencesChanged = false;
+    private long stamp = 0;
+
+    PsiChangeCollector(ReferenceDiagramDataModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    @Override
+    public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    @Override
+    public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    @Override
+    public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    @Override
+    public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    @Override
+    public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        collect(event);
+    }
+
+    private synchronized void collect(PsiTreeChangeEvent event) {
+        this.stamp++;
+        if (this.structureChanged) {
+            return;
+        }
+        if (this.model.isOutsideOfGraph(event.getFile())) {
+            this.outerReferencesChanged = true;
+            return;
+        }
+        PsiElement changed = event.getParent() != null ? event.getParent() : event.getElement();
+        PsiElement member = changed == null ? null : this.model.findChangedMember(changed);
+        if (member == null) {
+            invalidate();
+        } else {
+            this.changedMembers.add(member);
+        }
+    }
+
+    /**
+     * Forces a full rebuild on the next refresh.
+     */
+    synchronized void invalidate() {
+        this.stamp++;
+        this.structureChanged = true;
+        this.changedMembers.clear();
+    }
+
+    /**
+     * Returns the changes collected so far. They are kept until they are reported as {@link #applied}, so that
+     * a cancelled computation does not lose them.
+     */
+    synchronized Changes snapshot() {
+        return new Changes(this.stamp, this.structureChanged, this.outerReferencesChanged, this.changedMembers);
+    }
+
+    /**
+     * Forgets the given changes. Changes collected after the snapshot was taken are kept.
+     */
+    synchronized void applied(Changes changes) {
+        if (changes.stamp == this.stamp) {
+            this.structureChanged = false;
+            this.outerReferencesChanged = false;
+            this.changedMembers.clear();
+        } else {
+            this.changedMembers.removeAll(changes.changedMembers);
+        }
+    }
+
+    static class Changes {
+        private final long stamp;
+        private final boolean structureChanged;
+        private final boolean outerReferencesChanged;
+        private final Set<PsiElement> changedMembers;
+
+        private Changes(long stamp, boolean structureChanged, boolean outerReferencesChanged,
+                        Collection<PsiElement> changedMembers) {
+            this.stamp = stamp;
+            this.structureChanged = structureChanged;
+            this.outerReferencesChanged = outerReferencesChanged;
+            this.changedMembers = new HashSet<>(changedMembers);
+        }
+
+        boolean isEmpty() {
+            return !this.structureChanged && !this.outerReferencesChanged && this.changedMembers.isEmpty();
+        }
+
+        boolean isStructureChanged() {
+            return this.structureChanged;
+        }
+
+        boolean isOuterReferencesChanged() {
+            return this.structureChanged || this.outerReferencesChanged;
+        }
+
+        Set<PsiElement> getChangedMembers() {
+            return this.changedMembers;
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ package ch.docksnet.rgraph;
 
 import ch.docksnet.rgraph.fqn.ClassFQN;
 import ch.docksnet.rgraph.fqn.FQN;
+import ch.docksnet.rgraph.fqn.FQNPool;
 import ch.docksnet.rgraph.fqn.FieldFQN;
 import ch.docksnet.rgraph.fqn.FileFQN;
 import ch.docksnet.rgraph.fqn.MethodFQN;
@@ -28,7 +29,6 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.pom.Navigatable;
 import com.intellij.psi.JavaPsiFacade;
-import com.intellij.psi.PsiAnonymousClass;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiClassInitializer;
 import com.intellij.psi.PsiDirectory;
@@ -36,13 +36,13 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiMember;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.impl.file.PsiJavaDirectoryImpl;
-import com.intellij.psi.impl.source.tree.CompositePsiElement;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -50,84 +50,144 @@ import java.util.List;
  */
 public class PsiUtils {
 
-    @Nullable
-    public static PsiElement getRootPsiElement(PsiClass psiClass, CompositePsiElement psiElement) {
-        return getRootPsiElementWithStack(psiClass, psiElement, new LinkedList<PsiElement>());
-    }
+    private static final PsiElementDispatcher<String> PRESENTABLE_NAME_DISPATCHER = new PsiElementDispatcher<String>() {
 
-    private static PsiElement getRootPsiElementWithStack(PsiClass psiClass, PsiElement psiElement, List<PsiElement> stack) {
-        stack.add(psiElement);
-        PsiElement parent = psiElement.getParent();
-        if (parent == null) {
-            return null;
+        @Override
+        public String processClass(PsiClass psiClass) {
+            return psiClass.getName();
         }
-        try {
-            if (parent instanceof PsiMethod) {
-                if (PsiUtils.classHasMethod(psiClass, (PsiMethod) parent)) {
-                    return parent;
-                }
-            } else if (parent instanceof PsiClassInitializer) {
-                if (PsiUtils.classHasClassInitializer(psiClass, (PsiClassInitializer) parent)) {
-                    return parent;
-                }
-            } else if (parent instanceof PsiField) {
-                if (PsiUtils.classHasField(psiClass, (PsiField) parent)) {
-                    return parent;
-                }
-            } else if (parent instanceof PsiClass) {
-                if (psiClass.equals(((PsiClass) parent).getContainingClass())) {
-                    return parent;
-                }
-            } else if (parent instanceof PsiAnonymousClass) {
-                if (((PsiAnonymousClass) parent).getContainingClass().equals(psiClass)) {
-                    return parent;
+
+        @Override
+        public String processMethod(PsiMethod psiMethod) {
+            List<String> parameterArray = MethodFQN.getParameterArray(psiMethod);
+            String parameterRepresentation = MethodFQN.createParameterRepresentation(parameterArray);
+            return psiMethod.getName() + "(" + parameterRepresentation + ")";
+        }
+
+        @Override
+        public String processField(PsiField psiField) {
+            return psiField.getName();
+        }
+
+        @Override
+        public String processClassInitializer(PsiClassInitializer psiClassInitializer) {
+            return getName(psiClassInitializer);
+        }
+
+        @Override
+        public String processInnerClass(PsiClass innerClass) {
+            return innerClass.getName();
+        }
+
+        @Override
+        public String processStaticInnerClass(PsiClass staticInnerClass) {
+            return staticInnerClass.getName();
+        }
+
+        @Override
+        public String processEnum(PsiClass anEnum) {
+            return anEnum.getName();
+        }
+
+        @Override
+        public String processPackage(PsiJavaDirectoryImpl aPackage) {
+            return aPackage.getName();
+        }
+
+        @Override
+        public String processFile(PsiJavaFile aFile) {
+            return aFile.getName();
+        }
+    };
+
+    private static final PsiElementDispatcher<FQN> FQN_DISPATCHER = new PsiElementDispatcher<FQN>() {
+
+        @Override
+        public FQN processClass(PsiClass psiClass) {
+            return ClassFQN.create(psiClass);
+        }
+
+        @Override
+        public FQN processMethod(PsiMethod psiMethod) {
+            return MethodFQN.create(psiMethod);
+        }
+
+        @Override
+        public FQN processField(PsiField psiField) {
+            return FieldFQN.create(psiField);
+        }
+
+        @Override
+        public FQN processClassInitializer(PsiClassInitializer psiClassInitializer) {
+            return new FQN() {
+                @Override
+                public String getFQN() {
+                    return getName(psiClassInitializer);
                 }
-            }
-        } catch (Exception ex) {
-            stack.add(parent);
-            String preparedStack = prepareStack(stack);
-            throw new IllegalStateException("Cannot get root element. Stack: " + preparedStack);
+            };
         }
 
-        return getRootPsiElementWithStack(psiClass, parent, stack);
-    }
+        @Override
+        public FQN processInnerClass(PsiClass innerClass) {
+            return ClassFQN.create(innerClass);
+        }
 
-    private static String prepareStack(List<PsiElement> stack) {
-        StringBuilder sb = new StringBuilder();
+        @Override
+        public FQN processStaticInnerClass(PsiClass staticInnerClass) {
+            return ClassFQN.create(staticInnerClass);
+        }
 
-        for (PsiElement element : stack) {
-            sb.append(element.toString());
-            sb.append(", ");
+        @Override
+        public FQN processEnum(PsiClass anEnum) {
+            return ClassFQN.create(anEnum);
         }
 
-        return sb.toString();
-    }
+        @Override
+        public FQN processPackage(PsiJavaDirectoryImpl aPackage) {
+            return PackageFQN.create(aPackage);
+        }
 
-    private static boolean classHasMethod(PsiClass psiClass, PsiMethod other) {
-        for (PsiMethod psiMethod : psiClass.getMethods()) {
-            if (psiMethod.equals(other)) {
-                return true;
-            }
+        @Override
+        public FQN processFile(PsiJavaFile psiElement) {
+            return FileFQN.create(psiElement);
         }
-        return false;
+    };
+
+    /**
+     * Returns the member of the class that contains the given element. Use a {@link RootMemberResolver} to resolve
+     * many elements of the same class.
+     */
+    @Nullable
+    public static PsiElement getRootPsiElement(PsiClass psiClass, PsiElement psiElement) {
+        return new RootMemberResolver(psiClass).resolve(psiElement);
     }
 
-    private static boolean classHasField(PsiClass psiClass, PsiField other) {
-        for (PsiField psiField : psiClass.getFields()) {
-            if (psiField.equals(other)) {
-                return true;
-            }
+    /**
+     * Returns true if {@code element} lies within the body of {@code member}, i.e. a change of {@code element}
+     * does neither change the signature of {@code member} nor the structure of its class.
+     */
+    public static boolean isInsideBody(PsiElement member, PsiElement element) {
+        if (member instanceof PsiMethod) {
+            return isAncestor(((PsiMethod) member).getBody(), element);
+        }
+        if (member instanceof PsiClassInitializer) {
+            return isAncestor(((PsiClassInitializer) member).getBody(), element);
+        }
+        if (member instanceof PsiField) {
+            return isAncestor(((PsiField) member).getInitializer(), element);
+        }
+        if (member instanceof PsiClass) {
+            PsiMember innerMember = PsiTreeUtil.getParentOfType(element, PsiMember.class, false);
+            return innerMember != null
+                    && innerMember != member
+                    && PsiTreeUtil.isAncestor(member, innerMember, true)
+                    && isInsideBody(innerMember, element);
         }
         return false;
     }
 
-    private static boolean classHasClassInitializer(PsiClass psiClass, PsiClassInitializer other) {
-        for (PsiClassInitializer classInitializer : psiClass.getInitializers()) {
-            if (classInitializer.equals(other)) {
-                return true;
-            }
-        }
-        return false;
+    private static boolean isAncestor(@Nullable PsiElement ancestor, PsiElement element) {
+        return ancestor != null && PsiTreeUtil.isAncestor(ancestor, element, false);
     }
 
     static PsiClass getPsiClass(String classFQN, Project project) {
@@ -148,114 +208,24 @@ public class PsiUtils {
     }
 
     static String getPresentableName(PsiElement psiElement) {
-        PsiElementDispatcher<String> psiElementDispatcher = new PsiElementDispatcher<String>() {
-
-            @Override
-            public String processClass(PsiClass psiClass) {
-                return psiClass.getName();
-            }
-
-            @Override
-            public String processMethod(PsiMethod psiMethod) {
-                List<String> parameterArray = MethodFQN.getParameterArray(psiMethod);
-                String parameterRepresentation = MethodFQN.createParameterRepresentation(parameterArray);
-                return psiMethod.getName() + "(" + parameterRepresentation + ")";
-            }
-
-            @Override
-            public String processField(PsiField psiField) {
-                return psiField.getName();
-            }
-
-            @Override
-            public String processClassInitializer(PsiClassInitializer psiClassInitializer) {
-                return getName(psiClassInitializer);
-            }
-
-            @Override
-            public String processInnerClass(PsiClass innerClass) {
-                return innerClass.getName();
-            }
-
-            @Override
-            public String processStaticInnerClass(PsiClass staticInnerClass) {
-                return staticInnerClass.getName();
-            }
-
-            @Override
-            public String processEnum(PsiClass anEnum) {
-                return anEnum.getName();
-            }
-
-            @Override
-            public String processPackage(PsiJavaDirectoryImpl aPackage) {
-                return aPackage.getName();
-            }
-
-            @Override
-            public String processFile(PsiJavaFile aFile) {
-                return aFile.getName();
-            }
-        };
-
-        return psiElementDispatcher.dispatch(psiElement);
+        return NodeDescriptor.of(psiElement).getPresentableName();
+    }
+
+    static String computePresentableName(PsiElement psiElement) {
+        return PRESENTABLE_NAME_DISPATCHER.dispatch(psiElement);
     }
 
+    /**
+     * Returns the FQN of the element, interned in the {@link FQNPool} of its project and cached in its
+     * {@link NodeDescriptor}.
+     */
     public static FQN getFqn(PsiElement psiElement) {
-        PsiElementDispatcher<FQN> psiElementDispatcher = new PsiElementDispatcher<FQN>() {
-
-            @Override
-            public FQN processClass(PsiClass psiClass) {
-                return ClassFQN.create(psiClass);
-            }
-
-            @Override
-            public FQN processMethod(PsiMethod psiMethod) {
-                return MethodFQN.create(psiMethod);
-            }
-
-            @Override
-            public FQN processField(PsiField psiField) {
-                return FieldFQN.create(psiField);
-            }
-
-            @Override
-            public FQN processClassInitializer(PsiClassInitializer psiClassInitializer) {
-                return new FQN() {
-                    @Override
-                    public String getFQN() {
-                        return getName(psiClassInitializer);
-                    }
-                };
-            }
-
-            @Override
-            public FQN processInnerClass(PsiClass innerClass) {
-                return ClassFQN.create(innerClass);
-            }
-
-            @Override
-            public FQN processStaticInnerClass(PsiClass staticInnerClass) {
-                return ClassFQN.create(staticInnerClass);
-            }
-
-            @Override
-            public FQN processEnum(PsiClass anEnum) {
-                return ClassFQN.create(anEnum);
-            }
-
-            @Override
-            public FQN processPackage(PsiJavaDirectoryImpl aPackage) {
-                return PackageFQN.create(aPackage);
-            }
-
-            @Override
-            public FQN processFile(PsiJavaFile psiElement) {
-                return FileFQN.create(psiElement);
-            }
-        };
-
-        return psiElementDispatcher.dispatch(psiElement);
+        return NodeDescriptor.of(psiElement).getFqn();
+    }
+
+    static FQN computeFqn(PsiElement psiElement) {
+        FQN fqn = FQN_DISPATCHER.dispatch(psiElement);
+        return FQNPool.getInstance(psiElement.getProject()).intern(fqn);
     }
 
     public static void navigate(PsiElement psiElement, Project project) {
@@ -30,6 +30,9 @@ public class ReferenceDiagramColorManager extends DiagramColorManagerBase {
 
     @Override
     public Color getEdgeColor(DiagramEdge edge) {
+        if (edge instanceof ReferenceEdge && ((ReferenceEdge) edge).isMarked()) {
+            return new JBColor(new Color(214, 97, 0), new Color(230, 140, 60));
+        }
         final String edgeType = edge.getRelationship().toString();
         if (ReferenceEdge.Type.FIELD_TO_METHOD.name().equals(edgeType)) {
             return new JBColor(new Color(9, 128, 0), new Color(83, 128, 103));
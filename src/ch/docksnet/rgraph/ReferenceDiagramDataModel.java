@@ -20,37 +20,57 @@ import ch.docksnet.rgraph.fqn.FQN;
 import ch.docksnet.rgraph.fqn.FileFQN;
 import ch.docksnet.rgraph.fqn.Hierarchically;
 import ch.docksnet.rgraph.method.OuterReferences;
+import ch.docksnet.rgraph.method.ReferenceEdge;
 import ch.docksnet.rgraph.method.ReferenceNode;
 import ch.docksnet.rgraph.method.SourceTargetPair;
+import ch.docksnet.rgraph.toolwindow.ReferenceToolWindow;
+import ch.docksnet.utils.GraphFile;
 import ch.docksnet.utils.IncrementableSet;
+import ch.docksnet.utils.VersionedPool;
 import ch.docksnet.utils.lcom.CalleesSubgraphAnalyzer;
 import ch.docksnet.utils.lcom.CallersSubgraphAnalyzer;
-import ch.docksnet.utils.lcom.ClusterAnalyzer;
-import ch.docksnet.utils.lcom.LCOMAnalyzerData;
-import ch.docksnet.utils.lcom.LCOMNode;
+import ch.docksnet.utils.lcom.ClusterCounter;
+import ch.docksnet.utils.lcom.LCOMGraph;
+import ch.docksnet.utils.lcom.PathAnalyzer;
+import ch.docksnet.utils.lcom.ReachabilityIndex;
+import ch.docksnet.utils.lcom.StronglyConnectedComponents;
+import com.intellij.diagram.DiagramCategory;
 import com.intellij.diagram.DiagramDataModel;
 import com.intellij.diagram.DiagramEdge;
 import com.intellij.diagram.DiagramNode;
 import com.intellij.diagram.DiagramProvider;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.SmartPointerManager;
 import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static ch.docksnet.rgraph.PsiUtils.getFqn;
 
@@ -61,17 +81,42 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
     private final Map<FQN, SmartPsiElementPointer<PsiElement>> elementsRemovedByUser = new HashMap<>();
 
     private final Collection<DiagramNode<PsiElement>> nodes = new HashSet<>();
-    private final Map<PsiElement, DiagramNode<PsiElement>> nodesPool = new HashMap<>();
+    private final Map<FQN, DiagramNode<PsiElement>> nodesByFqn = new HashMap<>();
+    private final VersionedPool<PsiElement, ReferenceNode> nodesPool = new VersionedPool<>();
     private final Collection<DiagramEdge<PsiElement>> edges = new HashSet<>();
+    private final Map<DiagramNode<PsiElement>, Set<DiagramEdge<PsiElement>>> outgoingEdges = new HashMap<>();
+    private final Map<DiagramNode<PsiElement>, Set<DiagramEdge<PsiElement>>> incomingEdges = new HashMap<>();
 
     private final SmartPointerManager spManager;
+    private final PsiChangeCollector changeCollector = new PsiChangeCollector(this);
+
+    private final SimpleModificationTracker graphModificationTracker = new SimpleModificationTracker();
+    private LCOMGraph<ReferenceNode> analysisGraph;
+    private long analysisGraphStamp = -1;
+    private LCOMGraph<ReferenceNode> componentsGraph;
+    private StronglyConnectedComponents components;
+    private LCOMGraph<ReferenceNode> reachabilityGraph;
+    private ReachabilityIndex reachabilityIndex;
 
     private long currentClusterCount = 0;
+    private LCOMGraph<ReferenceNode> clusterGraph;
+    private ClusterCounter clusterCounter;
+    private final Set<DiagramNode<PsiElement>> removedFromClusters = new HashSet<>();
+    private final SimpleModificationTracker outerReferencesTracker = new SimpleModificationTracker();
+    private final Runnable outerReferencesRequest = this::requestOuterReferences;
     private OuterReferences outerReferences = OuterReferences.empty();
+    private long outerReferencesStamp = -1;
+    private boolean outerReferencesRequested = false;
+    private Set<DiagramCategory> shownCategories = new HashSet<>();
+    private boolean built = false;
+    private volatile int computeRequest;
+    private Set<PsiElement> resolvedElements = new LinkedHashSet<>();
+    private IncrementableSet<SourceTargetPair> resolvedRelationships = new IncrementableSet<>();
 
     public ReferenceDiagramDataModel(Project project, DiagramProvider<PsiElement> provider) {
         super(project, provider);
         this.spManager = SmartPointerManager.getInstance(getProject());
+        PsiManager.getInstance(getProject()).addPsiTreeChangeListener(this.changeCollector, this);
     }
 
     @NotNull
@@ -97,26 +142,87 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
 
     @Override
     public void refreshDataModel() {
-        clearAll();
-        updateDataModel();
-        refresh();
+        PsiChangeCollector.Changes changes = this.changeCollector.snapshot();
+        boolean rebuild = changes.isStructureChanged() || !this.built;
+        if (!rebuild && changes.isEmpty()) {
+            if (!getEnabledCategories().equals(this.shownCategories)) {
+                // a category was toggled, the resolved graph is only filtered again
+                showResolvedGraph();
+                updateDiagram();
+            } else {
+                refresh();
+            }
+            return;
+        }
+
+        List<SmartPsiElementPointer<PsiElement>> added = new ArrayList<>(this.elementsAddedByUser.values());
+        List<SmartPsiElementPointer<PsiElement>> removed = new ArrayList<>(this.elementsRemovedByUser.values());
+        int request = ++this.computeRequest;
+        if (!rebuild) {
+            List<PsiElement> resolved = new ArrayList<>(this.resolvedElements);
+            IncrementableSet<SourceTargetPair> resolvedRelationships = this.resolvedRelationships;
+            compute(() -> computeIncremental(changes, resolved, resolvedRelationships, added, removed), changes);
+            return;
+        }
+
+        String key = getGraphCacheKey();
+        if (key == null) {
+            compute(() -> computeRebuild(added, removed, null, null), changes);
+            return;
+        }
+        String cacheKey = ResolutionMode.current() + ":" + key;
+        GraphCache graphCache = GraphCache.getInstance(getProject());
+        // the cache is read before the read action, since it does IO
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            GraphFile cached = graphCache.load(cacheKey);
+            if (request == this.computeRequest) {
+                compute(() -> computeRebuild(added, removed, cacheKey, cached), changes);
+            }
+        });
     }
 
+    /**
+     * Runs the computation in a background read action and publishes its result.
+     */
+    private void compute(Callable<GraphUpdate> computation, PsiChangeCollector.Changes changes) {
+        ReadAction.nonBlocking(computation)
+                .inSmartMode(getProject())
+                .expireWith(this)
+                .coalesceBy(this.changeCollector)
+                .finishOnUiThread(ModalityState.defaultModalityState(), update -> {
+                    this.changeCollector.applied(changes);
+                    if (update.isRebuild()) {
+                        this.built = true;
+                    }
+                    publish(update);
+                    GraphCache.Entry cacheEntry = update.getCacheEntry();
+                    if (cacheEntry != null) {
+                        GraphCache graphCache = GraphCache.getInstance(getProject());
+                        AppExecutorUtil.getAppExecutorService().execute(() -> graphCache.store(cacheEntry));
+                    }
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
 
     private void refresh() {
-        analyzeLcom4();
-        updateToolWindow();
+        if (this.clusterCounter == null) {
+            analyzeLcom4();
+        }
+        if (isOuterReferencesUpToDate()) {
+            updateToolWindow();
+        }
     }
 
-    private Set<PsiElement> getElements() {
+    private Set<PsiElement> getElements(List<SmartPsiElementPointer<PsiElement>> added,
+                                        List<SmartPsiElementPointer<PsiElement>> removed) {
         Set<PsiElement> result = new HashSet<>();
 
-        for (SmartPsiElementPointer<PsiElement> psiElementPointer : this.elementsAddedByUser.values()) {
+        for (SmartPsiElementPointer<PsiElement> psiElementPointer : added) {
             PsiElement element = psiElementPointer.getElement();
             result.add(element);
         }
 
-        for (SmartPsiElementPointer<PsiElement> psiElementPointer : this.elementsRemovedByUser.values()) {
+        for (SmartPsiElementPointer<PsiElement> psiElementPointer : removed) {
             PsiElement element = psiElementPointer.getElement();
             result.remove(element);
         }
@@ -124,33 +230,203 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
         return result;
     }
 
-    private void updateDataModel() {
-        DiagramProvider<?> provider = getBuilder().getProvider();
-        Set<PsiElement> elements = getElements();
+    /**
+     * Computes the whole graph. Runs in a read action in the background, therefore nothing of the data model must
+     * be changed here. The elements of all categories are resolved, so toggling a category does not need to resolve
+     * them again. The relationships are taken from {@code cached}, the graph loaded from the {@link GraphCache}, if
+     * it was stored for the same elements.
+     */
+    private GraphUpdate computeRebuild(List<SmartPsiElementPointer<PsiElement>> added,
+                                       List<SmartPsiElementPointer<PsiElement>> removed,
+                                       @Nullable String cacheKey, @Nullable GraphFile cached) {
+        List<PsiElement> elements = new ArrayList<>();
+        for (PsiElement element : getElements(added, removed)) {
+            ProgressManager.checkCanceled();
+            if (element != null && element.isValid()) {
+                elements.add(element);
+            }
+        }
+
+        if (cacheKey == null) {
+            return GraphUpdate.rebuild(elements, resolveRelationships(elements), null);
+        }
+        IncrementableSet<SourceTargetPair> relationships = cached == null
+                ? null
+                : GraphCache.toRelationships(cached, elements);
+        if (relationships != null) {
+            return GraphUpdate.rebuild(elements, relationships, null);
+        }
+        relationships = resolveRelationships(elements);
+        GraphCache.Entry cacheEntry =
+                GraphCache.createEntry(cacheKey, elements, relationships, getGraphCacheDependencies());
+        return GraphUpdate.rebuild(elements, relationships, cacheEntry);
+    }
+
+    /**
+     * Computes the edges going out from the changed members only. Falls back to {@link #computeRebuild} if the
+     * changes cannot be applied incrementally.
+     */
+    private GraphUpdate computeIncremental(PsiChangeCollector.Changes changes, List<PsiElement> resolved,
+                                           IncrementableSet<SourceTargetPair> resolvedRelationships,
+                                           List<SmartPsiElementPointer<PsiElement>> added,
+                                           List<SmartPsiElementPointer<PsiElement>> removed) {
+        Set<PsiElement> changedMembers = changes.getChangedMembers();
+        for (PsiElement member : changedMembers) {
+            if (!member.isValid()) {
+                return computeRebuild(added, removed, null, null);
+            }
+        }
+        for (PsiElement element : resolved) {
+            if (!element.isValid()) {
+                return computeRebuild(added, removed, null, null);
+            }
+        }
+
+        IncrementableSet<SourceTargetPair> relationships = changedMembers.isEmpty()
+                ? new IncrementableSet<>()
+                : resolveRelationshipsFrom(changedMembers, resolved);
+        if (relationships == null) {
+            return computeRebuild(added, removed, null, null);
+        }
+
+        return GraphUpdate.incremental(changedMembers, relationships, resolvedRelationships,
+                changes.isOuterReferencesChanged());
+    }
+
+    /**
+     * Applies a computed graph at once and updates the diagram.
+     */
+    private void publish(GraphUpdate update) {
+        this.resolvedRelationships = update.getResolvedRelationships();
+        if (update.isRebuild()) {
+            this.resolvedElements = new LinkedHashSet<>(update.getElements());
+        }
+        if (update.isRebuild() || !getEnabledCategories().equals(this.shownCategories)) {
+            showResolvedGraph();
+        } else {
+            for (PsiElement member : update.getChangedMembers()) {
+                DiagramNode<PsiElement> node = findNode(member);
+                if (node != null) {
+                    removeAllEdgesFrom(node);
+                }
+            }
+            addEdges(update.getRelationships());
+        }
+        if (update.isOuterReferencesChanged()) {
+            this.outerReferencesTracker.incModificationCount();
+        }
+        updateDiagram();
+    }
 
-        for (PsiElement element : elements) {
-            if (isAllowedToShow(element)) {
-                this.nodes.add(getReferenceNode(provider, element));
+    /**
+     * Shows the resolved elements of the enabled categories and the edges between them. Nothing is resolved again.
+     */
+    private void showResolvedGraph() {
+        int enabledMask = ReferenceUmlCategoryManager.getMask(getNodeContentManager().getEnabledCategories());
+        clearAll();
+        DiagramProvider<?> provider = getBuilder().getProvider();
+        for (PsiElement element : this.resolvedElements) {
+            // the nodes of hidden elements are kept in the pool as well, so they keep their marks
+            ReferenceNode node = getReferenceNode(provider, element);
+            if (isAllowedToShow(element, enabledMask)) {
+                addNode(node);
             }
         }
+        // release the nodes, and with them the PSI, of elements which are gone
+        this.nodesPool.prune();
+        addEdges(this.resolvedRelationships);
+        this.shownCategories = getEnabledCategories();
+        this.outerReferencesTracker.incModificationCount();
+    }
+
+    private void updateDiagram() {
+        this.clusterCounter = null;
+        refresh();
+        getBuilder().getPresentationModel().update();
+        getProjectService().setOuterReferencesRequest(this.outerReferencesRequest);
+        if (this.outerReferencesRequested || isReferenceToolWindowVisible()) {
+            requestOuterReferences();
+        }
+    }
+
+    private Set<DiagramCategory> getEnabledCategories() {
+        Set<DiagramCategory> result = new HashSet<>();
+        for (DiagramCategory category : getNodeContentManager().getEnabledCategories()) {
+            result.add(category);
+        }
+        return result;
+    }
 
-        IncrementableSet<SourceTargetPair> relationships = resolveRelationships();
-        for (Map.Entry<SourceTargetPair, Long> sourceTargetPair : relationships.elements()) {
-            SourceTargetPair key = sourceTargetPair.getKey();
-            DiagramNode<PsiElement> source = findNode(key.getSource());
-            DiagramNode<PsiElement> target = findNode(key.getTarget());
+    private void addEdges(IncrementableSet<SourceTargetPair> relationships) {
+        relationships.forEach((sourceTargetPair, count) -> {
+            DiagramNode<PsiElement> source = findNode(sourceTargetPair.getSource());
+            DiagramNode<PsiElement> target = findNode(sourceTargetPair.getTarget());
             if (source != null && target != null && !source.equals(target)) {
-                this.edges.add(toEdge(source, target, sourceTargetPair.getValue()));
+                addEdge(toEdge(source, target, count));
+            }
+        });
+        this.graphModificationTracker.incModificationCount();
+    }
+
+    /**
+     * Adds the edge to {@link #edges} and to the edges of its source and target, so the edges of a node are found
+     * without looking at all edges.
+     */
+    private void addEdge(@Nullable DiagramEdge<PsiElement> edge) {
+        if (edge == null || !this.edges.add(edge)) {
+            return;
+        }
+        this.outgoingEdges.computeIfAbsent(edge.getSource(), node -> new HashSet<>()).add(edge);
+        this.incomingEdges.computeIfAbsent(edge.getTarget(), node -> new HashSet<>()).add(edge);
+    }
+
+    private boolean removeEdges(Collection<DiagramEdge<PsiElement>> toRemove) {
+        boolean changed = false;
+        for (DiagramEdge<PsiElement> edge : toRemove) {
+            if (this.edges.remove(edge)) {
+                removeAdjacentEdge(this.outgoingEdges, edge.getSource(), edge);
+                removeAdjacentEdge(this.incomingEdges, edge.getTarget(), edge);
+                changed = true;
             }
         }
+        return changed;
+    }
+
+    private static void removeAdjacentEdge(Map<DiagramNode<PsiElement>, Set<DiagramEdge<PsiElement>>> adjacentEdges,
+                                           DiagramNode<PsiElement> node, DiagramEdge<PsiElement> edge) {
+        Set<DiagramEdge<PsiElement>> nodeEdges = adjacentEdges.get(node);
+        if (nodeEdges != null && nodeEdges.remove(edge) && nodeEdges.isEmpty()) {
+            adjacentEdges.remove(node);
+        }
+    }
 
-        PsiElement initialElement = getBaseElement();
-        this.outerReferences = getOuterReferences(initialElement);
+    /**
+     * Replaces the edges of {@code from} by edges with the same count and mark between {@code to} and the other end.
+     */
+    private void replaceAdjacentEdges(DiagramNode<PsiElement> from, DiagramNode<PsiElement> to) {
+        List<DiagramEdge<PsiElement>> toReplace = new ArrayList<>();
+        toReplace.addAll(this.outgoingEdges.getOrDefault(from, Collections.emptySet()));
+        toReplace.addAll(this.incomingEdges.getOrDefault(from, Collections.emptySet()));
+        removeEdges(toReplace);
+        for (DiagramEdge<PsiElement> edge : toReplace) {
+            DiagramNode<PsiElement> source = edge.getSource() == from ? to : edge.getSource();
+            DiagramNode<PsiElement> target = edge.getTarget() == from ? to : edge.getTarget();
+            if (source.equals(target)) {
+                continue;
+            }
+            long count = edge instanceof ReferenceEdge ? ((ReferenceEdge) edge).getCount() : 0;
+            DiagramEdge<PsiElement> replacement = toEdge(source, target, count);
+            if (replacement instanceof ReferenceEdge && edge instanceof ReferenceEdge
+                    && ((ReferenceEdge) edge).isMarked()) {
+                ((ReferenceEdge) replacement).setMarked();
+            }
+            addEdge(replacement);
+        }
     }
 
     abstract protected PsiElement getBaseElement();
 
-    private OuterReferences getOuterReferences(PsiElement psiElement) {
+    private OuterReferences getOuterReferences(PsiElement psiElement, Collection<PsiElement> elements) {
         OuterReferences outerReferences = new OuterReferences(psiElement);
         FQN ownFqn = getBaseForOuterReferences(psiElement);
         if (!(ownFqn instanceof Hierarchically)) {
@@ -158,8 +434,8 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
         }
         Hierarchically ownHierarchy = (Hierarchically) ownFqn;
 
-        for (DiagramNode<PsiElement> node : getNodes()) {
-            PsiElement callee = node.getIdentifyingElement();
+        for (PsiElement callee : elements) {
+            ProgressManager.checkCanceled();
             Collection<PsiReference> all = resolveOuterReferences(callee);
             for (PsiReference psiReference : all) {
                 if (!(psiReference instanceof PsiElement)) {
@@ -177,38 +453,102 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
 
     protected abstract FQN getBaseForOuterReferences(PsiElement psiElement);
 
+    /**
+     * Computes the outer references in the background, unless they are up to date. From now on they are computed
+     * again after every change of the graph.
+     */
+    public void requestOuterReferences() {
+        this.outerReferencesRequested = true;
+        long stamp = this.outerReferencesTracker.getModificationCount();
+        if (stamp == this.outerReferencesStamp) {
+            return;
+        }
+        PsiElement baseElement = getBaseElement();
+        List<PsiElement> shown = new ArrayList<>();
+        for (DiagramNode<PsiElement> node : this.nodes) {
+            shown.add(node.getIdentifyingElement());
+        }
+
+        ReadAction.nonBlocking(() -> getOuterReferences(baseElement, shown))
+                .inSmartMode(getProject())
+                .expireWith(this)
+                .coalesceBy(this.outerReferencesTracker)
+                .finishOnUiThread(ModalityState.defaultModalityState(), outerReferences -> {
+                    this.outerReferences = outerReferences;
+                    this.outerReferencesStamp = stamp;
+                    updateToolWindow();
+                    getBuilder().getPresentationModel().update();
+                })
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    public boolean isOuterReferencesUpToDate() {
+        return this.outerReferencesStamp == this.outerReferencesTracker.getModificationCount();
+    }
+
+    private boolean isReferenceToolWindowVisible() {
+        ToolWindow toolWindow = ToolWindowManager.getInstance(getProject()).getToolWindow(ReferenceToolWindow.ID);
+        return toolWindow != null && toolWindow.isVisible();
+    }
+
+    private ProjectService getProjectService() {
+        return ServiceManager.getService(getProject(), ProjectService.class);
+    }
+
     private void updateToolWindow() {
-        ServiceManager.getService(getProject(), ProjectService.class)
+        getProjectService()
                 .getSamePackageReferences()
                 .replaceContent(this.outerReferences.getReferencesSamePackage());
 
-        ServiceManager.getService(getProject(), ProjectService.class)
+        getProjectService()
                 .getSameHierarchieReferences()
                 .replaceContent(this.outerReferences.getReferencesSameHierarchy());
 
-        ServiceManager.getService(getProject(), ProjectService.class)
+        getProjectService()
                 .getOtherHierarchieReferences()
                 .replaceContent(this.outerReferences.getReferencesOtherHierarchy());
     }
 
     protected void clearAll() {
         this.nodes.clear();
+        this.nodesByFqn.clear();
         this.edges.clear();
-        this.elementsRemovedByUser.clear();
+        this.outgoingEdges.clear();
+        this.incomingEdges.clear();
+        releasePointers(this.elementsRemovedByUser);
+        this.clusterCounter = null;
+        this.removedFromClusters.clear();
+        this.graphModificationTracker.incModificationCount();
     }
 
     protected SmartPsiElementPointer<PsiElement> createSmartPsiElementPointer(PsiElement psiElement) {
         return this.spManager.createSmartPsiElementPointer(psiElement);
     }
 
+    /**
+     * Releases a pointer created by {@link #createSmartPsiElementPointer(PsiElement)}, so the smart pointer manager
+     * does not have to keep it up to date any more.
+     */
+    protected void releasePointer(@Nullable SmartPsiElementPointer<PsiElement> pointer) {
+        if (pointer != null) {
+            this.spManager.removePointer(pointer);
+        }
+    }
+
+    private void putPointer(Map<FQN, SmartPsiElementPointer<PsiElement>> pointers, FQN fqn, PsiElement element) {
+        releasePointer(pointers.put(fqn, createSmartPsiElementPointer(element)));
+    }
+
+    private void releasePointers(Map<FQN, SmartPsiElementPointer<PsiElement>> pointers) {
+        for (SmartPsiElementPointer<PsiElement> pointer : pointers.values()) {
+            releasePointer(pointer);
+        }
+        pointers.clear();
+    }
+
     @NotNull
     private ReferenceNode getReferenceNode(DiagramProvider<?> provider, PsiElement element) {
-        if (this.nodesPool.containsKey(element)) {
-            return (ReferenceNode) this.nodesPool.get(element);
-        }
-        ReferenceNode node = new ReferenceNode(element, provider);
-        this.nodesPool.put(element, node);
-        return node;
+        return this.nodesPool.get(element, it -> new ReferenceNode(it, provider));
     }
 
     @Override
@@ -218,16 +558,37 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
 
     @Nullable
     private DiagramNode<PsiElement> findNode(PsiElement psiElement) {
-        Iterator<?> ptr = (new ArrayList<>(this.nodes)).iterator();
+        FQN fqn = getFqn(psiElement);
+        if (fqn == null) {
+            return null;
+        }
+        return this.nodesByFqn.get(fqn);
+    }
 
-        while (ptr.hasNext()) {
-            DiagramNode<PsiElement> node = (DiagramNode<PsiElement>) ptr.next();
-            FQN fqn = PsiUtils.getFqn((PsiElement) node.getIdentifyingElement());
-            if (fqn != null && fqn.equals(getFqn(psiElement))) {
-                return node;
+    private void addNode(DiagramNode<PsiElement> node) {
+        FQN fqn = getFqn(node.getIdentifyingElement());
+        if (fqn == null) {
+            // shown like any other node, but it cannot be found by FQN, so no edges are drawn for it
+            this.nodes.add(node);
+            this.graphModificationTracker.incModificationCount();
+            return;
+        }
+        DiagramNode<PsiElement> previous = this.nodesByFqn.put(fqn, node);
+        if (previous != null) {
+            this.nodes.remove(previous);
+            if (previous != node) {
+                // the edges of the replaced node belong to the node with the same FQN now
+                replaceAdjacentEdges(previous, node);
             }
         }
-        return null;
+        this.nodes.add(node);
+        this.graphModificationTracker.incModificationCount();
+    }
+
+    private void removeNodeFromIndex(FQN fqn, DiagramNode<PsiElement> node) {
+        this.nodes.remove(node);
+        this.nodesByFqn.remove(fqn);
+        this.graphModificationTracker.incModificationCount();
     }
 
     @Override
@@ -235,41 +596,35 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
         return true;
     }
 
+    /**
+     * Starts a batch of changes, which are applied together by {@link Batch#commit()}.
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
     public void removeMarkedNodes() {
-        List<ReferenceNode> toRemove = new ArrayList<>();
+        Batch batch = batch();
         for (DiagramNode<PsiElement> myNode : this.nodes) {
-            if (myNode instanceof ReferenceNode) {
-                if (((ReferenceNode) myNode).isMarked()) {
-                    toRemove.add((ReferenceNode) myNode);
-                    ((ReferenceNode) myNode).switchMarked();
-                }
+            if (myNode instanceof ReferenceNode && ((ReferenceNode) myNode).isMarked()) {
+                batch.unmark(myNode).remove(myNode);
             }
         }
-        Iterator<ReferenceNode> iterator = toRemove.iterator();
-        while (iterator.hasNext()) {
-            ReferenceNode next = iterator.next();
-            removeElement((PsiElement) next.getIdentifyingElement());
-        }
-        analyzeLcom4();
+        batch.commit();
     }
 
     public void isolateMarkedNodes() {
-        List<ReferenceNode> toRemove = new ArrayList<>();
+        Batch batch = batch();
         for (DiagramNode<PsiElement> myNode : this.nodes) {
             if (myNode instanceof ReferenceNode) {
                 if (!((ReferenceNode) myNode).isMarked()) {
-                    toRemove.add((ReferenceNode) myNode);
+                    batch.remove(myNode);
                 } else {
-                    ((ReferenceNode) myNode).switchMarked();
+                    batch.unmark(myNode);
                 }
             }
         }
-        Iterator<ReferenceNode> iterator = toRemove.iterator();
-        while (iterator.hasNext()) {
-            ReferenceNode next = iterator.next();
-            removeElement((PsiElement) next.getIdentifyingElement());
-        }
-        analyzeLcom4();
+        batch.commit();
     }
 
     public void unmarkAllNodes() {
@@ -278,54 +633,145 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
                 ((ReferenceNode) myNode).unsetMarked();
             }
         }
+        for (DiagramEdge<PsiElement> myEdge : this.edges) {
+            if (myEdge instanceof ReferenceEdge) {
+                ((ReferenceEdge) myEdge).unsetMarked();
+            }
+        }
+    }
+
+    /**
+     * Returns the analysis graph of the current nodes and edges. It is converted once per modification of the
+     * diagram graph and shared by the cluster count and the mark actions.
+     */
+    private LCOMGraph<ReferenceNode> getAnalysisGraph() {
+        long stamp = this.graphModificationTracker.getModificationCount();
+        if (this.analysisGraph == null || this.analysisGraphStamp != stamp) {
+            LCOMConverter lcomConverter = new LCOMConverter();
+            this.analysisGraph = lcomConverter.convert(getNodes(), getEdges());
+            this.analysisGraphStamp = stamp;
+        }
+        return this.analysisGraph;
     }
 
     private void analyzeLcom4() {
-        LCOMConverter lcomConverter = new LCOMConverter();
-        Collection<LCOMNode> lcom4Nodes = lcomConverter.convert(getNodes(), getEdges());
-        LCOMAnalyzerData lcomAnalyzerData = new LCOMAnalyzerData(lcom4Nodes);
-        ClusterAnalyzer clusterAnalyzer = new ClusterAnalyzer(lcomAnalyzerData);
-        this.currentClusterCount = clusterAnalyzer.countCluster();
+        this.removedFromClusters.clear();
+        this.clusterGraph = getAnalysisGraph();
+        this.clusterCounter = new ClusterCounter(this.clusterGraph);
+        this.currentClusterCount = this.clusterCounter.getClusterCount();
+    }
+
+    /**
+     * Updates the cluster count after {@code removedNodes} have been removed. Only the clusters containing one of
+     * them are recomputed.
+     */
+    private void removeFromClusters(Collection<? extends DiagramNode<PsiElement>> removedNodes) {
+        this.removedFromClusters.addAll(removedNodes);
+        updateClusters();
+    }
+
+    /**
+     * Removes the nodes removed since the last update from the clusters at once.
+     */
+    private void updateClusters() {
+        if (this.removedFromClusters.isEmpty()) {
+            return;
+        }
+        if (this.clusterCounter == null) {
+            analyzeLcom4();
+            return;
+        }
+        int[] ids = new int[this.removedFromClusters.size()];
+        int index = 0;
+        for (DiagramNode<PsiElement> removedNode : this.removedFromClusters) {
+            int id = this.clusterGraph.idOf(removedNode);
+            if (id < 0) {
+                analyzeLcom4();
+                return;
+            }
+            ids[index++] = id;
+        }
+        this.removedFromClusters.clear();
+        this.clusterCounter.removeAll(ids);
+        this.currentClusterCount = this.clusterCounter.getClusterCount();
     }
 
     private void removeElement(PsiElement element) {
-        DiagramNode<PsiElement> node = findNode(element);
+        FQN fqn = PsiUtils.getFqn(element);
+        DiagramNode<PsiElement> node = fqn == null ? null : this.nodesByFqn.get(fqn);
         if (node == null) {
-            this.elementsAddedByUser.remove(PsiUtils.getFqn(element));
+            releasePointer(this.elementsAddedByUser.remove(fqn));
         } else {
-            PsiElement toRemove = (PsiElement) node.getIdentifyingElement();
-            this.nodes.remove(node);
-            this.elementsRemovedByUser.put(PsiUtils.getFqn(element), createSmartPsiElementPointer(toRemove));
-            this.elementsAddedByUser.remove(PsiUtils.getFqn(element));
+            PsiElement toRemove = node.getIdentifyingElement();
+            removeNodeFromIndex(fqn, node);
+            this.resolvedElements.remove(toRemove);
+            putPointer(this.elementsRemovedByUser, fqn, toRemove);
+            releasePointer(this.elementsAddedByUser.remove(fqn));
             removeAllEdgesFromOrTo(node);
         }
     }
 
     private void removeAllEdgesFromOrTo(DiagramNode<PsiElement> node) {
-        FQN removedNode = PsiUtils.getFqn(node.getIdentifyingElement());
         Set<DiagramEdge<PsiElement>> toRemove = new HashSet<>();
-        for (DiagramEdge<PsiElement> myEdge : this.edges) {
-            if (PsiUtils.getFqn(myEdge.getSource().getIdentifyingElement()).equals(removedNode)) {
-                toRemove.add(myEdge);
-            } else if (PsiUtils.getFqn(myEdge.getTarget().getIdentifyingElement()).equals(removedNode)) {
-                toRemove.add(myEdge);
-            }
+        toRemove.addAll(this.outgoingEdges.getOrDefault(node, Collections.emptySet()));
+        toRemove.addAll(this.incomingEdges.getOrDefault(node, Collections.emptySet()));
+        removeEdges(toRemove);
+        this.graphModificationTracker.incModificationCount();
+    }
+
+    private void removeAllEdgesFrom(DiagramNode<PsiElement> node) {
+        List<DiagramEdge<PsiElement>> toRemove = new ArrayList<>(
+                this.outgoingEdges.getOrDefault(node, Collections.emptySet()));
+        if (removeEdges(toRemove)) {
+            this.graphModificationTracker.incModificationCount();
         }
-        this.edges.removeAll(toRemove);
     }
 
+    /**
+     * Is called by the diagram for each of the deleted nodes. The cluster count is updated once, when it is needed
+     * the next time.
+     */
     @Override
     public void removeNode(DiagramNode<PsiElement> node) {
-        removeElement((PsiElement) node.getIdentifyingElement());
-        analyzeLcom4();
+        PsiElement element = node.getIdentifyingElement();
+        if (getFqn(element) == null) {
+            if (this.nodes.remove(node)) {
+                this.resolvedElements.remove(element);
+                removeAllEdgesFromOrTo(node);
+            }
+        } else {
+            removeElement(element);
+        }
+        this.removedFromClusters.add(node);
     }
 
+    /**
+     * Releases the smart pointers and the nodes of the diagram, so no PSI is held after the diagram is closed.
+     */
     @Override
     public void dispose() {
+        if (!getProject().isDisposed()) {
+            getProjectService().removeOuterReferencesRequest(this.outerReferencesRequest);
+            releasePointers(this.elementsAddedByUser);
+            releasePointers(this.elementsRemovedByUser);
+        }
+        this.elementsAddedByUser.clear();
+        this.elementsRemovedByUser.clear();
+        clearAll();
+        this.nodesPool.clear();
+        this.resolvedElements.clear();
+        this.resolvedRelationships = new IncrementableSet<>();
+        this.analysisGraph = null;
+        this.componentsGraph = null;
+        this.components = null;
+        this.reachabilityGraph = null;
+        this.reachabilityIndex = null;
+        this.clusterGraph = null;
     }
 
     protected void addUserElement(PsiElement child) {
-        this.elementsAddedByUser.put(getFqn(child), createSmartPsiElementPointer(child));
+        putPointer(this.elementsAddedByUser, getFqn(child), child);
+        this.changeCollector.invalidate();
     }
 
     @Nullable
@@ -335,9 +781,64 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
         return new ReferenceNode(ReferenceDiagramDataModel.this.elementsAddedByUser.get(getFqn(psiElement)).getElement(), getProvider());
     }
 
-    protected abstract boolean isAllowedToShow(PsiElement element);
+    /**
+     * Returns whether the element is shown if the categories of {@code enabledMask} are enabled. The mask is the one
+     * of {@link ReferenceUmlCategoryManager#getMask}, computed once per filtering of the graph.
+     */
+    protected abstract boolean isAllowedToShow(PsiElement element, int enabledMask);
+
+    /**
+     * Resolves the relationships between the given elements. Is called in a background read action.
+     */
+    protected abstract IncrementableSet<SourceTargetPair> resolveRelationships(Collection<PsiElement> elements);
+
+    /**
+     * Returns the key under which the relationships of this diagram are kept in the {@link GraphCache}, or null if
+     * they are not cached. Is called on the UI thread.
+     */
+    @Nullable
+    protected String getGraphCacheKey() {
+        return null;
+    }
+
+    /**
+     * Returns the files whose content the relationships of this diagram depend on, i.e. the files their references
+     * are located in and the files of the declarations which decide what these references resolve to. A directory
+     * stands for the listing of the Java files below it. Is called in a background read action, right after the
+     * relationships were resolved.
+     */
+    protected Collection<VirtualFile> getGraphCacheDependencies() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Resolves the relationships going out from the given members to the given elements only. Is called in a
+     * background read action.
+     *
+     * @return null if the data model is not able to resolve relationships of single members.
+     */
+    @Nullable
+    protected IncrementableSet<SourceTargetPair> resolveRelationshipsFrom(Collection<PsiElement> callers,
+                                                                          Collection<PsiElement> elements) {
+        return null;
+    }
+
+    /**
+     * Returns the member of the graph whose body contains the changed element, or null if the change is not
+     * confined to the body of a single member.
+     */
+    @Nullable
+    protected PsiElement findChangedMember(@NotNull PsiElement changed) {
+        return null;
+    }
 
-    protected abstract IncrementableSet<SourceTargetPair> resolveRelationships();
+    /**
+     * Returns true if changes in the given file cannot affect the nodes and edges of the graph, but only the
+     * outer references.
+     */
+    protected boolean isOutsideOfGraph(@Nullable PsiFile file) {
+        return false;
+    }
 
     @NotNull
     @Override
@@ -346,6 +847,7 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
     }
 
     public long getCurrentClusterCount() {
+        updateClusters();
         return this.currentClusterCount;
     }
 
@@ -362,67 +864,209 @@ public abstract class ReferenceDiagramDataModel extends DiagramDataModel<PsiElem
 
     @SuppressWarnings("rawtypes")
     public void markCallees(List<DiagramNode> roots) {
-        LCOMConverter lcomConverter = new LCOMConverter();
-        Collection<LCOMNode> lcom4Nodes = lcomConverter.convert(getNodes(), getEdges());
+        LCOMGraph<ReferenceNode> graph = getAnalysisGraph();
+        ReachabilityIndex index = getReachabilityIndex(graph);
+        if (index != null) {
+            mark(graph, index.getDescendants(searchRoots(roots, graph)));
+            return;
+        }
+        CalleesSubgraphAnalyzer analyzer = new CalleesSubgraphAnalyzer(graph);
         for (DiagramNode root : roots) {
-            markCallees(root, lcom4Nodes);
+            mark(graph, analyzer.getCallees(searchRoot(root, graph)));
         }
     }
 
     @SuppressWarnings("rawtypes")
-    private void markCallees(DiagramNode root, Collection<LCOMNode> lcom4Nodes) {
-        LCOMNode lcomRoot = searchRoot(root, lcom4Nodes);
-        lcomRoot.getIdentifyingElement().setMarked();
-        List<LCOMNode> callees = getCalleesTransitiv(lcomRoot, lcom4Nodes);
-        for (LCOMNode callee : callees) {
-            callee.getIdentifyingElement().setMarked();
+    public void markCallers(List<DiagramNode> roots) {
+        LCOMGraph<ReferenceNode> graph = getAnalysisGraph();
+        ReachabilityIndex index = getReachabilityIndex(graph);
+        if (index != null) {
+            mark(graph, index.getAncestors(searchRoots(roots, graph)));
+            return;
+        }
+        CallersSubgraphAnalyzer analyzer = new CallersSubgraphAnalyzer(graph);
+        for (DiagramNode root : roots) {
+            mark(graph, analyzer.getCallers(searchRoot(root, graph)));
+        }
+    }
+
+    /**
+     * Returns the reachability index of {@code graph}, built on first use. Returns {@code null} if the graph has too
+     * many components for a precomputed closure.
+     */
+    @Nullable
+    private ReachabilityIndex getReachabilityIndex(LCOMGraph<ReferenceNode> graph) {
+        if (this.reachabilityGraph != graph) {
+            StronglyConnectedComponents components = getComponents(graph);
+            this.reachabilityIndex = ReachabilityIndex.isApplicable(components)
+                    ? new ReachabilityIndex(graph, components)
+                    : null;
+            this.reachabilityGraph = graph;
         }
+        return this.reachabilityIndex;
     }
 
+    private StronglyConnectedComponents getComponents(LCOMGraph<ReferenceNode> graph) {
+        if (this.componentsGraph != graph) {
+            this.components = new StronglyConnectedComponents(graph);
+            this.componentsGraph = graph;
+        }
+        return this.components;
+    }
+
+    /**
+     * Returns the number of reference cycles in the diagram, i.e. strongly connected components with more than one
+     * node or with a node referencing itself. The components are computed once per analysis graph.
+     */
+    public int getCurrentCycleCount() {
+        return getComponents(getAnalysisGraph()).getCycleCount();
+    }
+
+    /**
+     * Marks all nodes which are part of a reference cycle.
+     */
+    public void markCycles() {
+        LCOMGraph<ReferenceNode> graph = getAnalysisGraph();
+        mark(graph, getComponents(graph).getNodesInCycles());
+    }
+
+    /**
+     * Marks the nodes and edges on the paths from {@code first} to {@code second}. If there is no such path, the paths
+     * in the opposite direction are marked. With {@code k == 1} a path with the fewest edges is marked, otherwise up
+     * to {@code k} paths over the edges with the most references.
+     *
+     * @return {@code true}, if a path was found
+     */
     @SuppressWarnings("rawtypes")
-    private LCOMNode searchRoot(DiagramNode diagramNode, Collection<LCOMNode> lcom4Nodes) {
-        for (LCOMNode lcom4Node : lcom4Nodes) {
-            if (lcom4Node.getIdentifyingElement().equals(diagramNode)) {
-                return lcom4Node;
-            }
+    public boolean markPaths(DiagramNode first, DiagramNode second, int k) {
+        LCOMGraph<ReferenceNode> graph = getAnalysisGraph();
+        int firstId = searchRoot(first, graph);
+        int secondId = searchRoot(second, graph);
+        List<int[]> paths = findPaths(graph, firstId, secondId, k);
+        if (paths.isEmpty()) {
+            paths = findPaths(graph, secondId, firstId, k);
         }
-        throw new IllegalStateException("DiagramNode not found");
+        markPaths(graph, paths);
+        return !paths.isEmpty();
     }
 
-    private List<LCOMNode> getCalleesTransitiv(LCOMNode lcomRoot, Collection<LCOMNode> lcom4Nodes) {
-        final LCOMAnalyzerData data = new LCOMAnalyzerData(lcom4Nodes);
-        CalleesSubgraphAnalyzer analyzer = new CalleesSubgraphAnalyzer(data);
-        List<LCOMNode> result = analyzer.getCallees(lcomRoot);
-        return result;
+    private static List<int[]> findPaths(LCOMGraph<ReferenceNode> graph, int source, int target, int k) {
+        PathAnalyzer analyzer = new PathAnalyzer(graph);
+        if (k == 1) {
+            int[] path = analyzer.getShortestPath(source, target);
+            return path.length == 0 ? Collections.emptyList() : Collections.singletonList(path);
+        }
+        return analyzer.getShortestPaths(source, target, k);
+    }
+
+    private void markPaths(LCOMGraph<ReferenceNode> graph, List<int[]> paths) {
+        Set<Pair<ReferenceNode, ReferenceNode>> steps = new HashSet<>();
+        for (int[] path : paths) {
+            for (int i = 0; i < path.length; i++) {
+                graph.getElement(path[i]).setMarked();
+                if (i > 0) {
+                    steps.add(Pair.create(graph.getElement(path[i - 1]), graph.getElement(path[i])));
+                }
+            }
+        }
+        for (DiagramEdge<PsiElement> myEdge : this.edges) {
+            if (myEdge instanceof ReferenceEdge
+                    && steps.contains(Pair.create(myEdge.getSource(), myEdge.getTarget()))) {
+                ((ReferenceEdge) myEdge).setMarked();
+            }
+        }
     }
 
     @SuppressWarnings("rawtypes")
-    public void markCallers(List<DiagramNode> roots) {
-        LCOMConverter lcomConverter = new LCOMConverter();
-        Collection<LCOMNode> lcom4Nodes = lcomConverter.convert(getNodes(), getEdges());
-        for (DiagramNode root : roots) {
-            markCallers(root, lcom4Nodes);
+    private int[] searchRoots(List<DiagramNode> roots, LCOMGraph<ReferenceNode> graph) {
+        int[] result = new int[roots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = searchRoot(roots.get(i), graph);
         }
+        return result;
     }
 
     @SuppressWarnings("rawtypes")
-    private void markCallers(DiagramNode root, Collection<LCOMNode> lcom4Nodes) {
-        LCOMNode lcomRoot = searchRoot(root, lcom4Nodes);
-        lcomRoot.getIdentifyingElement().setMarked();
-        List<LCOMNode> callers = getCallersTransitiv(lcomRoot, lcom4Nodes);
-        for (LCOMNode caller : callers) {
-            caller.getIdentifyingElement().setMarked();
+    private int searchRoot(DiagramNode diagramNode, LCOMGraph<ReferenceNode> graph) {
+        int id = graph.idOf(diagramNode);
+        if (id < 0) {
+            throw new IllegalStateException("DiagramNode not found");
         }
+        return id;
     }
 
-    private List<LCOMNode> getCallersTransitiv(LCOMNode lcomRoot, Collection<LCOMNode> lcom4Nodes) {
-        final LCOMAnalyzerData data = new LCOMAnalyzerData(lcom4Nodes);
-        CallersSubgraphAnalyzer analyzer = new CallersSubgraphAnalyzer(data);
-        List<LCOMNode> result = analyzer.getCallees(lcomRoot);
-        return result;
+    private void mark(LCOMGraph<ReferenceNode> graph, BitSet ids) {
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            graph.getElement(id).setMarked();
+        }
     }
 
+    /**
+     * Returns the last computed outer references, see {@link #requestOuterReferences()}.
+     */
     public OuterReferences getOuterReferences() {
         return this.outerReferences;
     }
+
+    /**
+     * Collects removals, additions and marks of nodes and applies them in one pass. The cluster count is updated
+     * once per batch instead of once per removed node, and added elements are resolved by a single refresh.
+     */
+    public class Batch {
+        private final Set<DiagramNode<PsiElement>> removals = new LinkedHashSet<>();
+        private final List<PsiElement> additions = new ArrayList<>();
+        private final Map<ReferenceNode, Boolean> marks = new HashMap<>();
+
+        private Batch() {
+        }
+
+        public Batch remove(DiagramNode<PsiElement> node) {
+            this.removals.add(node);
+            return this;
+        }
+
+        public Batch add(PsiElement element) {
+            this.additions.add(element);
+            return this;
+        }
+
+        public Batch mark(DiagramNode<?> node) {
+            if (node instanceof ReferenceNode) {
+                this.marks.put((ReferenceNode) node, true);
+            }
+            return this;
+        }
+
+        public Batch unmark(DiagramNode<?> node) {
+            if (node instanceof ReferenceNode) {
+                this.marks.put((ReferenceNode) node, false);
+            }
+            return this;
+        }
+
+        public void commit() {
+            this.marks.forEach((node, marked) -> {
+                if (marked) {
+                    node.setMarked();
+                } else {
+                    node.unsetMarked();
+                }
+            });
+
+            for (DiagramNode<PsiElement> node : this.removals) {
+                removeElement(node.getIdentifyingElement());
+            }
+            if (!this.removals.isEmpty()) {
+                removeFromClusters(this.removals);
+            }
+
+            for (PsiElement element : this.additions) {
+                putPointer(ReferenceDiagramDataModel.this.elementsAddedByUser, getFqn(element), element);
+            }
+            if (!this.additions.isEmpty()) {
+                ReferenceDiagramDataModel.this.changeCollector.invalidate();
+            }
+        }
+    }
+
 }
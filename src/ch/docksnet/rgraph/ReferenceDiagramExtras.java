@@ -21,6 +21,9 @@ import ch.docksnet.rgraph.actions.IsolateMarkedAction;
 import ch.docksnet.rgraph.actions.MarkAction;
 import ch.docksnet.rgraph.actions.MarkCalleesAction;
 import ch.docksnet.rgraph.actions.MarkCallersAction;
+import ch.docksnet.rgraph.actions.MarkCyclesAction;
+import ch.docksnet.rgraph.actions.MarkShortestPathAction;
+import ch.docksnet.rgraph.actions.MarkStrongestPathsAction;
 import ch.docksnet.rgraph.actions.ShowClusterCountAction;
 import ch.docksnet.rgraph.actions.ShowOuterReferencesAction;
 import ch.docksnet.rgraph.actions.UnmarkAction;
@@ -70,6 +73,9 @@ public class ReferenceDiagramExtras extends DiagramExtras<PsiElement> {
         result.add(new UnmarkAllAction());
         result.add(new MarkCalleesAction());
         result.add(new MarkCallersAction());
+        result.add(new MarkShortestPathAction());
+        result.add(new MarkStrongestPathsAction());
+        result.add(new MarkCyclesAction());
         result.add(new DeleteMarkedAction());
         result.add(new IsolateMarkedAction());
         return result;
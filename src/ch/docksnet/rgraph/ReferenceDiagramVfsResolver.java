@@ -16,10 +16,8 @@
 
 package ch.docksnet.rgraph;
 
-import ch.docksnet.rgraph.fqn.ClassFQN;
-import ch.docksnet.rgraph.fqn.FieldFQN;
+import ch.docksnet.rgraph.fqn.FQNParser;
 import ch.docksnet.rgraph.fqn.MethodFQN;
-import ch.docksnet.rgraph.fqn.PackageFQN;
 import com.intellij.diagram.DiagramVfsResolver;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
@@ -43,37 +41,33 @@ public class ReferenceDiagramVfsResolver implements DiagramVfsResolver<PsiElemen
     @Nullable
     @Override
     public PsiElement resolveElementByFQN(String fqn, Project project) {
-        if (MethodFQN.isMethodFQN(fqn)) {
-            MethodFQN methodFQN = MethodFQN.create(fqn);
-            PsiClass psiClass = PsiUtils.getPsiClass(methodFQN.getClassName(), project);
+        FQNParser parser = FQNParser.parse(fqn);
+        if (parser.getKind() == FQNParser.Kind.METHOD) {
+            PsiClass psiClass = PsiUtils.getPsiClass(parser.getClassName(), project);
 
-            PsiMethod[] methodsByName = psiClass.findMethodsByName(methodFQN.getMethodName(), true);
+            PsiMethod[] methodsByName = psiClass.findMethodsByName(parser.getMemberName(), true);
             for (PsiMethod psiMethod : methodsByName) {
                 List<String> parameterArray = MethodFQN.getParameterArray(psiMethod);
                 String parameterRepresentation = MethodFQN.createParameterRepresentation(parameterArray);
-                if (MethodFQN.createParameterRepresentation(methodFQN.getParameters()).equals
-                        (parameterRepresentation)) {
+                if (parser.getParameterString().equals(parameterRepresentation)) {
                     return psiMethod;
                 }
             }
             throw new IllegalArgumentException("Method not found: " + fqn);
-        } else if (FieldFQN.isFieldFQN(fqn)) {
-            FieldFQN fieldFQN = FieldFQN.create(fqn);
-            PsiClass psiClass = PsiUtils.getPsiClass(fieldFQN.getClassName(), project);
+        } else if (parser.getKind() == FQNParser.Kind.FIELD) {
+            PsiClass psiClass = PsiUtils.getPsiClass(parser.getClassName(), project);
 
             for (PsiField psiField : psiClass.getFields()) {
-                if (psiField.getName().equals(fieldFQN.getFieldName())) {
+                if (psiField.getName().equals(parser.getMemberName())) {
                     return psiField;
                 }
             }
             throw new IllegalArgumentException("Field not found: " + fqn);
 
-        } else if (ClassFQN.isClassFQN(fqn)) {
-            ClassFQN classFQN = ClassFQN.create(fqn);
-            return PsiUtils.getPsiClass(classFQN.getFQN(), project);
-        } else if (PackageFQN.isPackage(fqn)) {
-            PackageFQN packageFQN = PackageFQN.create(fqn);
-            return PsiUtils.getPsiJavaDirectory(packageFQN.getFQN(), project);
+        } else if (parser.getKind() == FQNParser.Kind.CLASS) {
+            return PsiUtils.getPsiClass(fqn, project);
+        } else if (parser.getKind() == FQNParser.Kind.PACKAGE) {
+            return PsiUtils.getPsiJavaDirectory(fqn, project);
         }
         throw new IllegalStateException("Cannot processs fqn: " + fqn);
     }
@@ -43,6 +43,16 @@ public class ReferenceUmlCategoryManager extends AbstractDiagramNodeContentManag
     private static final DiagramCategory STATIC_INNER_CLASS;
     private static final DiagramCategory ENUM;
     static final DiagramCategory[] CATEGORIES;
+    private static final int STATIC_FIELDS_MASK;
+    private static final int FIELDS_MASK;
+    private static final int CONSTRUCTORS_MASK;
+    private static final int STATIC_METHODS_MASK;
+    private static final int METHODS_MASK;
+    private static final int STATIC_CLASS_INITIALIZER_MASK;
+    private static final int CLASS_INITIALIZER_MASK;
+    private static final int INNER_CLASS_MASK;
+    private static final int STATIC_INNER_CLASS_MASK;
+    private static final int ENUM_MASK;
 
     ReferenceUmlCategoryManager() {
     }
@@ -52,112 +62,55 @@ public class ReferenceUmlCategoryManager extends AbstractDiagramNodeContentManag
     }
 
     public boolean isInCategory(Object element, DiagramCategory category, DiagramState presentation) {
-        if (ENUM.equals(category)) {
-            if (element instanceof PsiClass) {
-                if (((PsiClass) element).getContainingClass() != null) {
-                    if (((PsiClass) element).isEnum()) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-        }
+        return (getCategoryMask(element) & getMask(category)) != 0;
+    }
 
-        if (STATIC_INNER_CLASS.equals(category)) {
-            if (element instanceof PsiClass) {
-                if (((PsiClass) element).getContainingClass() != null) {
-                    if (!((PsiClass) element).isEnum() && ((PsiClass) element).hasModifierProperty("static")) {
-                        return true;
-                    }
-                }
-                return false;
+    /**
+     * Classifies the element in one pass. Returns a mask with the bit of its category set, or 0 if it is in none.
+     * The bits are those of {@link #getMask(DiagramCategory...)}.
+     */
+    public static int getCategoryMask(Object element) {
+        if (element instanceof PsiMethod) {
+            PsiMethod psiMethod = (PsiMethod) element;
+            if (psiMethod.isConstructor()) {
+                return CONSTRUCTORS_MASK;
             }
+            return psiMethod.hasModifierProperty("static") ? STATIC_METHODS_MASK : METHODS_MASK;
         }
-
-        if (INNER_CLASS.equals(category)) {
-            if (element instanceof PsiClass) {
-                if (((PsiClass) element).getContainingClass() != null) {
-                    if (!((PsiClass) element).isEnum() && !((PsiClass) element).hasModifierProperty("static")) {
-                        return true;
-                    }
-                }
-                return false;
-            }
+        if (element instanceof PsiField) {
+            return ((PsiField) element).hasModifierProperty("static") ? STATIC_FIELDS_MASK : FIELDS_MASK;
         }
-
-        if (STATIC_FIELDS.equals(category)) {
-            if (element instanceof PsiField) {
-                if (((PsiField) element).hasModifierProperty("static")) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
+        if (element instanceof PsiClassInitializer) {
+            return ((PsiClassInitializer) element).hasModifierProperty("static")
+                    ? STATIC_CLASS_INITIALIZER_MASK
+                    : CLASS_INITIALIZER_MASK;
         }
-        if (FIELDS.equals(category)) {
-            if (element instanceof PsiField) {
-                if (!((PsiField) element).hasModifierProperty("static")) {
-                    return true;
-                } else {
-                    return false;
-                }
+        if (element instanceof PsiClass) {
+            PsiClass psiClass = (PsiClass) element;
+            if (psiClass.getContainingClass() == null) {
+                return 0;
             }
-        }
-        if (CONSTRUCTORS.equals(category)) {
-            if (element instanceof PsiMethod) {
-                if (((PsiMethod) element).isConstructor()) {
-                    return true;
-                } else {
-                    return false;
-                }
+            if (psiClass.isEnum()) {
+                return ENUM_MASK;
             }
+            return psiClass.hasModifierProperty("static") ? STATIC_INNER_CLASS_MASK : INNER_CLASS_MASK;
         }
-        if (METHODS.equals(category)) {
-            if (element instanceof PsiMethod) {
-                if (!((PsiMethod) element).isConstructor()) {
-                    if (!((PsiMethod) element).hasModifierProperty("static")) {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
-            }
-        }
-        if (STATIC_METHODS.equals(category)) {
-            if (element instanceof PsiMethod) {
-                if (!((PsiMethod) element).isConstructor()) {
-                    if (((PsiMethod) element).hasModifierProperty("static")) {
-                        return true;
-                    } else {
-                        return false;
-                    }
-                } else {
-                    return false;
-                }
-            }
-        }
-        if (CLASS_INITIALIZER.equals(category)) {
-            if (element instanceof PsiClassInitializer) {
-                if (!((PsiClassInitializer) element).hasModifierProperty("static")) {
-                    return true;
-                } else {
-                    return false;
-                }
-            }
-        }
-        if (STATIC_CLASS_INITIALIZER.equals(category)) {
-            if (element instanceof PsiClassInitializer) {
-                if (((PsiClassInitializer) element).hasModifierProperty("static")) {
-                    return true;
-                } else {
-                    return false;
+        return 0;
+    }
+
+    /**
+     * Returns a mask with the bits of the given categories set.
+     */
+    public static int getMask(DiagramCategory... categories) {
+        int result = 0;
+        for (DiagramCategory category : categories) {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                if (CATEGORIES[i].equals(category)) {
+                    result |= 1 << i;
                 }
             }
         }
-
-        return false;
+        return result;
     }
 
     static {
@@ -188,6 +141,17 @@ public class ReferenceUmlCategoryManager extends AbstractDiagramNodeContentManag
 
         CATEGORIES = new DiagramCategory[]{FIELDS, METHODS, CONSTRUCTORS, CLASS_INITIALIZER, STATIC_FIELDS, STATIC_METHODS,
                 STATIC_CLASS_INITIALIZER, INNER_CLASS, STATIC_INNER_CLASS, ENUM};
+
+        STATIC_FIELDS_MASK = getMask(STATIC_FIELDS);
+        FIELDS_MASK = getMask(FIELDS);
+        CONSTRUCTORS_MASK = getMask(CONSTRUCTORS);
+        STATIC_METHODS_MASK = getMask(STATIC_METHODS);
+        METHODS_MASK = getMask(METHODS);
+        STATIC_CLASS_INITIALIZER_MASK = getMask(STATIC_CLASS_INITIALIZER);
+        CLASS_INITIALIZER_MASK = getMask(CLASS_INITIALIZER);
+        INNER_CLASS_MASK = getMask(INNER_CLASS);
+        STATIC_INNER_CLASS_MASK = getMask(STATIC_INNER_CLASS);
+        ENUM_MASK = getMask(ENUM);
     }
 
 }
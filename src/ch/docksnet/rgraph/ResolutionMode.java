@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+/**
+ * Selects how the references between the nodes of a diagram are resolved. Can be chosen with the system property
+ * {@code rgraph.resolution}, e.g. {@code -Drgraph.resolution=SEARCH}.
+ */
+public enum ResolutionMode {
+    /**
+     * Walks the class once and resolves every reference in it. Package diagrams run one
+     * {@link com.intellij.psi.search.searches.ReferencesSearch} per class, like {@link #SEARCH}.
+     */
+    SINGLE_PASS,
+    /**
+     * Runs one {@link com.intellij.psi.search.searches.ReferencesSearch} per node.
+     */
+    SEARCH,
+    /**
+     * Runs the searches of {@link #SEARCH} concurrently, see {@link ParallelSearch}.
+     */
+    PARALLEL_SEARCH,
+    /**
+     * Like {@link #SINGLE_PASS}, but package diagrams look up the referencing files in
+     * {@link ch.docksnet.rgraph.directory.TypeReferenceIndex} instead of searching. The index does not resolve
+     * references, so the counts may differ from the search, e.g. for classes with the same name.
+     */
+    TYPE_INDEX;
+
+    private static final String PROPERTY = "rgraph.resolution";
+
+    /**
+     * Returns whether class diagrams walk the class once instead of searching.
+     */
+    public boolean isSinglePass() {
+        return this == SINGLE_PASS || this == TYPE_INDEX;
+    }
+
+    public static ResolutionMode current() {
+        String value = System.getProperty(PROPERTY);
+        if (value == null) {
+            return SINGLE_PASS;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return SINGLE_PASS;
+        }
+    }
+}
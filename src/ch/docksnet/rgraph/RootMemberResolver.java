@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiClassInitializer;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiMethod;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the member of a class that contains a given element, i.e. the node of the diagram a reference is counted for.
+ * <p>
+ * A resolver is meant for one resolution run over an unchanged class: the direct members are collected once, and the
+ * root member of every visited ancestor is remembered, so the references within the same member body share most of
+ * the walk. May be used by several threads at once.
+ */
+public class RootMemberResolver {
+
+    private static final Object NONE = new Object();
+
+    private final PsiClass psiClass;
+    private final Set<PsiElement> members = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<PsiElement, Object> roots = new ConcurrentHashMap<>();
+
+    public RootMemberResolver(PsiClass psiClass) {
+        this.psiClass = psiClass;
+        Collections.addAll(this.members, psiClass.getMethods());
+        Collections.addAll(this.members, psiClass.getFields());
+        Collections.addAll(this.members, psiClass.getInitializers());
+    }
+
+    /**
+     * Returns the method, field, class initializer or inner class of the class that contains the given element, or
+     * null if the element is not located in one of them.
+     */
+    @Nullable
+    public PsiElement resolve(PsiElement psiElement) {
+        List<PsiElement> visited = new ArrayList<>();
+        Object root = NONE;
+        PsiElement parent = psiElement.getParent();
+        while (parent != null) {
+            Object known = this.roots.get(parent);
+            if (known != null) {
+                root = known;
+                break;
+            }
+            visited.add(parent);
+            if (isRoot(psiElement, parent, visited)) {
+                root = parent;
+                break;
+            }
+            parent = parent.getParent();
+        }
+        for (PsiElement ancestor : visited) {
+            this.roots.put(ancestor, root);
+        }
+        return root == NONE ? null : (PsiElement) root;
+    }
+
+    private boolean isRoot(PsiElement psiElement, PsiElement ancestor, List<PsiElement> visited) {
+        try {
+            if (ancestor instanceof PsiMethod || ancestor instanceof PsiClassInitializer
+                    || ancestor instanceof PsiField) {
+                return this.members.contains(ancestor);
+            }
+            if (ancestor instanceof PsiClass) {
+                // inner and anonymous classes are nodes of their own
+                return this.psiClass.equals(((PsiClass) ancestor).getContainingClass());
+            }
+            return false;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Cannot get root element. Stack: " + prepareStack(psiElement, visited));
+        }
+    }
+
+    private static String prepareStack(PsiElement psiElement, List<PsiElement> visited) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(psiElement.toString());
+        sb.append(", ");
+
+        for (PsiElement element : visited) {
+            sb.append(element.toString());
+            sb.append(", ");
+        }
+
+        return sb.toString();
+    }
+
+}
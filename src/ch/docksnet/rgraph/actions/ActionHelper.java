@@ -32,4 +32,8 @@ public class ActionHelper {
         }
     }
 
+    public static void enableIfTwoNodesSelected(AnActionEvent e) {
+        e.getPresentation().setEnabled(DiagramAction.getSelectedNodes(e).size() == 2);
+    }
+
 }
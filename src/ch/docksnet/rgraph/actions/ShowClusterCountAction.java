@@ -46,8 +46,10 @@ public class ShowClusterCountAction extends DiagramAction {
         if (getDataModel(e) instanceof ReferenceDiagramDataModel) {
             e.getPresentation().setVisible(true);
             e.getPresentation().setEnabled(false);
-            long currentClusterCount = ((ReferenceDiagramDataModel) getDataModel(e)).getCurrentClusterCount();
-            e.getPresentation().setText("Cluster Count: " + currentClusterCount);
+            ReferenceDiagramDataModel dataModel = (ReferenceDiagramDataModel) getDataModel(e);
+            long currentClusterCount = dataModel.getCurrentClusterCount();
+            int currentCycleCount = dataModel.getCurrentCycleCount();
+            e.getPresentation().setText("Cluster Count: " + currentClusterCount + ", Cycles: " + currentCycleCount);
         } else {
             e.getPresentation().setVisible(false);
         }
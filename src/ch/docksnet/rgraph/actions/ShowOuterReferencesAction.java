@@ -17,8 +17,8 @@
 package ch.docksnet.rgraph.actions;
 
 import ch.docksnet.rgraph.ReferenceDiagramDataModel;
-import ch.docksnet.rgraph.toolwindow.TestToolWindow;
 import ch.docksnet.rgraph.method.OuterReferences;
+import ch.docksnet.rgraph.toolwindow.TestToolWindow;
 import com.intellij.diagram.DiagramAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.application.ApplicationManager;
@@ -31,7 +31,13 @@ public class ShowOuterReferencesAction extends DiagramAction {
 
     @Override
     public void perform(AnActionEvent e) {
-        OuterReferences outerReferences = ((ReferenceDiagramDataModel) getDataModel(e)).getOuterReferences();
+        ReferenceDiagramDataModel dataModel = (ReferenceDiagramDataModel) getDataModel(e);
+        if (!dataModel.isOuterReferencesUpToDate()) {
+            // the first click counts them, once counted they are listed
+            dataModel.requestOuterReferences();
+            return;
+        }
+        OuterReferences outerReferences = dataModel.getOuterReferences();
         Project project = e.getProject();
         ApplicationManager.getApplication().invokeLater(
                 () -> TestToolWindow.show(project, outerReferences)
@@ -51,10 +57,15 @@ public class ShowOuterReferencesAction extends DiagramAction {
     @Override
     public void update(AnActionEvent e) {
         if (getDataModel(e) instanceof ReferenceDiagramDataModel) {
+            ReferenceDiagramDataModel dataModel = (ReferenceDiagramDataModel) getDataModel(e);
             e.getPresentation().setVisible(true);
-            e.getPresentation().setEnabled(false);
-            OuterReferences outerReferences = ((ReferenceDiagramDataModel) getDataModel(e)).getOuterReferences();
-            e.getPresentation().setText("Other References: " + outerReferences.toToolbarString());
+            e.getPresentation().setEnabled(true);
+            if (dataModel.isOuterReferencesUpToDate()) {
+                e.getPresentation().setText("Other References: " + dataModel.getOuterReferences().toToolbarString());
+            } else {
+                // counted on demand, as it searches the whole project
+                e.getPresentation().setText("Other References: count");
+            }
         } else {
             e.getPresentation().setVisible(false);
         }
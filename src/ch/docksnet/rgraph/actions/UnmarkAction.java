@@ -16,8 +16,9 @@
 
 package ch.docksnet.rgraph.actions;
 
-import ch.docksnet.rgraph.method.ReferenceNode;
+import ch.docksnet.rgraph.ReferenceDiagramDataModel;
 import com.intellij.diagram.DiagramAction;
+import com.intellij.diagram.DiagramDataModel;
 import com.intellij.diagram.DiagramNode;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 
@@ -28,10 +29,13 @@ public class UnmarkAction extends DiagramAction {
 
     @Override
     public void perform(AnActionEvent e) {
-        for (DiagramNode diagramNode : getSelectedNodes(e)) {
-            if (diagramNode instanceof ReferenceNode) {
-                ((ReferenceNode) diagramNode).unsetMarked();
+        DiagramDataModel<?> dataModel = getDataModel(e);
+        if (dataModel instanceof ReferenceDiagramDataModel) {
+            ReferenceDiagramDataModel.Batch batch = ((ReferenceDiagramDataModel) dataModel).batch();
+            for (DiagramNode<?> diagramNode : getSelectedNodes(e)) {
+                batch.unmark(diagramNode);
             }
+            batch.commit();
         }
         getBuilder(e).getPresentationModel().update();
     }
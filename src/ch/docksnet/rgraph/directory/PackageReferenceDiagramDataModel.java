@@ -16,6 +16,7 @@
 
 package ch.docksnet.rgraph.directory;
 
+import ch.docksnet.rgraph.OuterReferenceSearch;
 import ch.docksnet.rgraph.PsiUtils;
 import ch.docksnet.rgraph.ReferenceDiagramDataModel;
 import ch.docksnet.rgraph.ReferenceDiagramProvider;
@@ -27,14 +28,19 @@ import com.intellij.diagram.DiagramEdge;
 import com.intellij.diagram.DiagramNode;
 import com.intellij.diagram.DiagramRelationshipInfo;
 import com.intellij.diagram.DiagramRelationshipInfoAdapter;
+import com.intellij.ide.highlighter.JavaFileType;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiPackage;
 import com.intellij.psi.PsiReference;
 import com.intellij.psi.impl.file.PsiJavaDirectoryImpl;
-import com.intellij.psi.search.GlobalSearchScopes;
-import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -70,6 +76,12 @@ public class PackageReferenceDiagramDataModel extends ReferenceDiagramDataModel
         return this.baseElement;
     }
 
+    @Override
+    protected boolean isOutsideOfGraph(@Nullable PsiFile file) {
+        // all callers accumulated in the graph are located in the subtree of the package
+        return file != null && !PsiTreeUtil.isAncestor(this.baseElement, file, true);
+    }
+
     @Override
     protected FQN getBaseForOuterReferences(PsiElement psiElement) {
         return PsiUtils.getFqn(psiElement);
@@ -84,7 +96,7 @@ public class PackageReferenceDiagramDataModel extends ReferenceDiagramDataModel
         }
         PsiClass[] classes = ((PsiJavaFile) psiElement).getClasses();
         for (PsiClass psiClass : classes) {
-            result.addAll(ReferencesSearch.search(psiClass, GlobalSearchScopes.projectProductionScope(getProject())).findAll());
+            result.addAll(OuterReferenceSearch.search(psiClass, getProject()));
         }
         return result;
     }
@@ -95,7 +107,7 @@ public class PackageReferenceDiagramDataModel extends ReferenceDiagramDataModel
                                              @NotNull DiagramNode<PsiElement> to,
                                              Long value) {
         final DiagramRelationshipInfo relationship = createEdgeFromNonField(value == null ? 0 : value);
-        return new ReferenceEdge(from, to, relationship);
+        return new ReferenceEdge(from, to, relationship, value == null ? 0 : value);
     }
 
     @NotNull
@@ -129,13 +141,39 @@ public class PackageReferenceDiagramDataModel extends ReferenceDiagramDataModel
     }
 
     @Override
-    protected boolean isAllowedToShow(PsiElement element) {
+    protected boolean isAllowedToShow(PsiElement element, int enabledMask) {
         return true;
     }
 
     @NotNull
     @Override
-    protected IncrementableSet<SourceTargetPair> resolveRelationships() {
-        return this.references.createRelationships(getNodes(), getProject());
+    protected IncrementableSet<SourceTargetPair> resolveRelationships(Collection<PsiElement> elements) {
+        return this.references.createRelationships(elements, getProject());
+    }
+
+    @Nullable
+    @Override
+    protected String getGraphCacheKey() {
+        PsiPackage psiPackage = ((PsiJavaDirectoryImpl) this.baseElement).getPackage();
+        return psiPackage == null ? null : "package:" + psiPackage.getQualifiedName();
+    }
+
+    /**
+     * The relationships of a package only depend on the Java files in its subtree, since callers outside of it are
+     * not part of the graph. The directory itself is a dependency too, as a new file in a subpackage does not change
+     * the nodes of the graph, but may add edges.
+     */
+    @Override
+    protected Collection<VirtualFile> getGraphCacheDependencies() {
+        Collection<VirtualFile> result = new ArrayList<>();
+        VirtualFile directory = ((PsiDirectory) this.baseElement).getVirtualFile();
+        result.add(directory);
+        VfsUtilCore.iterateChildrenRecursively(directory, null, file -> {
+            if (!file.isDirectory() && JavaFileType.INSTANCE.equals(file.getFileType())) {
+                result.add(file);
+            }
+            return true;
+        });
+        return result;
     }
 }
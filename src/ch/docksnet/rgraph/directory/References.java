@@ -16,22 +16,31 @@
 
 package ch.docksnet.rgraph.directory;
 
+import ch.docksnet.rgraph.ParallelSearch;
 import ch.docksnet.rgraph.PsiUtils;
+import ch.docksnet.rgraph.ResolutionMode;
 import ch.docksnet.rgraph.fqn.FQN;
 import ch.docksnet.rgraph.fqn.Hierarchically;
 import ch.docksnet.rgraph.method.SourceTargetPair;
+import ch.docksnet.utils.ConcurrentIncrementableSet;
 import ch.docksnet.utils.IncrementableSet;
-import com.intellij.diagram.DiagramNode;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.file.PsiJavaDirectoryImpl;
 import com.intellij.psi.impl.source.tree.CompositePsiElement;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.util.indexing.FileBasedIndex;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class References {
     public List<PsiElement> createNodes(PsiJavaDirectoryImpl directory) {
@@ -47,51 +56,136 @@ public class References {
     }
 
 
-    public IncrementableSet<SourceTargetPair> createRelationships(Collection<? extends DiagramNode<PsiElement>> nodes, Project project) {
+    public IncrementableSet<SourceTargetPair> createRelationships(Collection<PsiElement> elements, Project project) {
+        ResolutionMode mode = ResolutionMode.current();
+        if (mode == ResolutionMode.PARALLEL_SEARCH) {
+            ConcurrentIncrementableSet<SourceTargetPair> concurrentSet = new ConcurrentIncrementableSet<>();
+            ParallelSearch.forEach(elements, callee -> createRelationships(callee, project, concurrentSet::increment));
+            return concurrentSet.toIncrementableSet();
+        }
+
         IncrementableSet<SourceTargetPair> incrementableSet = new IncrementableSet<>();
+        for (PsiElement callee : elements) {
+            ProgressManager.checkCanceled();
+            if (mode == ResolutionMode.TYPE_INDEX) {
+                createRelationshipsByIndex(callee, project, incrementableSet);
+            } else {
+                createRelationships(callee, project, incrementableSet::increment);
+            }
+        }
+        return incrementableSet;
+    }
+
+    private void createRelationships(PsiElement callee, Project project, Consumer<SourceTargetPair> relationships) {
+        if (!(callee instanceof PsiJavaFile)) {
+            return;
+        }
+        PsiClass[] classes = ((PsiJavaFile) callee).getClasses();
+        for (PsiClass psiClass : classes) {
+            Collection<PsiReference> references = ReferencesSearch.search(psiClass, GlobalSearchScope.projectScope(project)).findAll();
+
+            for (PsiReference psiReference : references) {
+                if (!(psiReference instanceof CompositePsiElement)) {
+                    continue;
+                }
+                if (((CompositePsiElement) psiReference).getParent() instanceof PsiImportStatement) {
+                    // don't count import statements
+                    continue;
+                }
+                PsiElement caller = ((CompositePsiElement) psiReference).getContainingFile();
 
-        for (DiagramNode<PsiElement> node : nodes) {
-            PsiElement callee = node.getIdentifyingElement();
-
-
-            if (callee instanceof PsiJavaFile) {
-                PsiClass[] classes = ((PsiJavaFile) callee).getClasses();
-                for (PsiClass psiClass : classes) {
-                    Collection<PsiReference> references = ReferencesSearch.search(psiClass, GlobalSearchScope.projectScope(project)).findAll();
-
-                    for (PsiReference psiReference : references) {
-                        if (!(psiReference instanceof CompositePsiElement)) {
-                            continue;
-                        }
-                        if (((CompositePsiElement) psiReference).getParent() instanceof PsiImportStatement) {
-                            // don't count import statements
-                            continue;
-                        }
-                        PsiElement caller = ((CompositePsiElement) psiReference).getContainingFile();
-
-                        if (caller == null) {
-                            continue;
-                        }
-
-                        FQN callerFqn = PsiUtils.getFqn(caller);
-
-                        if (callerFqn instanceof Hierarchically) {
-                            Hierarchically calleeH = (Hierarchically) PsiUtils.getFqn(callee);
-                            Hierarchically callerH = (Hierarchically) callerFqn;
-                            if (calleeH.samePackage(callerH)) {
-                                incrementableSet.increment(new SourceTargetPair(caller, callee));
-                            } else if (callerH.sameHierarchy(calleeH)) {
-                                String accumulationPackage = calleeH.getNextHierarchyTowards(callerH);
-                                PsiElement accumulator = PsiUtils.getPsiJavaDirectory(accumulationPackage, project);
-                                incrementableSet.increment(new SourceTargetPair(accumulator, callee));
-                            }
-                        }
-                    }
+                if (caller == null) {
+                    continue;
+                }
 
+                SourceTargetPair relationship = toRelationship(caller, callee, project);
+                if (relationship != null) {
+                    relationships.accept(relationship);
                 }
             }
         }
-        return incrementableSet;
+    }
+
+    /**
+     * Looks up the files referencing the classes of {@code callee} in {@link TypeReferenceIndex} instead of searching
+     * the whole project. A reference by simple name is only counted, if the referencing file is in the same package or
+     * imports the class or its package. The references are not resolved, so shadowed or same-named classes may be
+     * counted differently than by the search; this is why it is only used with {@link ResolutionMode#TYPE_INDEX}.
+     */
+    private void createRelationshipsByIndex(PsiElement callee, Project project,
+                                            IncrementableSet<SourceTargetPair> relationships) {
+        if (!(callee instanceof PsiJavaFile)) {
+            return;
+        }
+        String packageName = ((PsiJavaFile) callee).getPackageName();
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(project);
+        PsiManager psiManager = PsiManager.getInstance(project);
+        for (PsiClass psiClass : ((PsiJavaFile) callee).getClasses()) {
+            String name = psiClass.getName();
+            String qualifiedName = psiClass.getQualifiedName();
+            if (name == null || qualifiedName == null) {
+                continue;
+            }
+            Map<VirtualFile, Integer> bySimpleName = getReferencingFiles(name, scope);
+            Map<VirtualFile, Integer> byQualifiedName = getReferencingFiles(qualifiedName, scope);
+
+            for (Map.Entry<VirtualFile, Integer> entry : bySimpleName.entrySet()) {
+                ProgressManager.checkCanceled();
+                PsiFile caller = psiManager.findFile(entry.getKey());
+                if (!(caller instanceof PsiJavaFile)) {
+                    continue;
+                }
+                int count = seesSimpleName((PsiJavaFile) caller, packageName, qualifiedName)
+                        ? entry.getValue()
+                        : byQualifiedName.getOrDefault(entry.getKey(), 0);
+                if (count == 0) {
+                    continue;
+                }
+                SourceTargetPair relationship = toRelationship(caller, callee, project);
+                if (relationship != null) {
+                    relationships.increment(relationship, count);
+                }
+            }
+        }
+    }
+
+    private static Map<VirtualFile, Integer> getReferencingFiles(String typeName, GlobalSearchScope scope) {
+        Map<VirtualFile, Integer> result = new HashMap<>();
+        FileBasedIndex.getInstance().processValues(TypeReferenceIndex.NAME, typeName, null, (file, count) -> {
+            result.merge(file, count, Integer::sum);
+            return true;
+        }, scope);
+        return result;
+    }
+
+    private static boolean seesSimpleName(PsiJavaFile caller, String packageName, String qualifiedName) {
+        if (packageName.equals(caller.getPackageName())) {
+            return true;
+        }
+        PsiImportList importList = caller.getImportList();
+        if (importList == null) {
+            return false;
+        }
+        return importList.findSingleClassImportStatement(qualifiedName) != null
+                || importList.findOnDemandImportStatement(packageName) != null;
+    }
+
+    @Nullable
+    private SourceTargetPair toRelationship(PsiElement caller, PsiElement callee, Project project) {
+        FQN callerFqn = PsiUtils.getFqn(caller);
+
+        if (callerFqn instanceof Hierarchically) {
+            Hierarchically calleeH = (Hierarchically) PsiUtils.getFqn(callee);
+            Hierarchically callerH = (Hierarchically) callerFqn;
+            if (calleeH.samePackage(callerH)) {
+                return new SourceTargetPair(caller, callee);
+            } else if (callerH.sameHierarchy(calleeH)) {
+                String accumulationPackage = calleeH.getNextHierarchyTowards(callerH);
+                PsiElement accumulator = PsiUtils.getPsiJavaDirectory(accumulationPackage, project);
+                return new SourceTargetPair(accumulator, callee);
+            }
+        }
+        return null;
     }
 
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.directory;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.psi.JavaRecursiveElementWalkingVisitor;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiImportList;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiPackageStatement;
+import com.intellij.psi.PsiReferenceExpression;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the names of top level types referenced in a Java file to the number of references. A reference is indexed by
+ * the name of its outermost type, i.e. {@code Map} for {@code Map.Entry}, and if that type is written with its
+ * package, also by its qualified name. Package qualifiers are not indexed on their own. References in import and
+ * package statements are not indexed.
+ * <p/>
+ * The index does not resolve references. The outermost type of a reference is its first segment starting with an
+ * upper case letter, and the last segment of a reference expression is taken for a member, so {@code CONSTANT} alone
+ * is not indexed, but {@code CONSTANT.foo()} is. The counts are candidates, which is why the index is only used with
+ * {@link ch.docksnet.rgraph.ResolutionMode#TYPE_INDEX}, see {@link References}.
+ */
+public class TypeReferenceIndex extends FileBasedIndexExtension<String, Integer> {
+
+    public static final ID<String, Integer> NAME = ID.create("ch.docksnet.rgraph.TypeReferenceIndex");
+
+    private static final int VERSION = 2;
+
+    @NotNull
+    @Override
+    public ID<String, Integer> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Integer, FileContent> getIndexer() {
+        return inputData -> {
+            Map<String, Integer> result = new HashMap<>();
+            PsiFile psiFile = inputData.getPsiFile();
+            if (psiFile instanceof PsiJavaFile) {
+                psiFile.accept(new TypeReferenceCollector(result));
+            }
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Integer> getValueExternalizer() {
+        return EnumeratorIntegerDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    private static class TypeReferenceCollector extends JavaRecursiveElementWalkingVisitor {
+
+        private final Map<String, Integer> counts;
+
+        TypeReferenceCollector(Map<String, Integer> counts) {
+            this.counts = counts;
+        }
+
+        @Override
+        public void visitImportList(PsiImportList list) {
+            // don't count import statements
+        }
+
+        @Override
+        public void visitPackageStatement(PsiPackageStatement statement) {
+        }
+
+        @Override
+        public void visitReferenceElement(PsiJavaCodeReferenceElement reference) {
+            super.visitReferenceElement(reference);
+            if (!(reference instanceof PsiReferenceExpression) && !isQualifier(reference)) {
+                count(reference, false);
+            }
+        }
+
+        @Override
+        public void visitReferenceExpression(PsiReferenceExpression expression) {
+            super.visitReferenceExpression(expression);
+            if (!isQualifier(expression)) {
+                count(expression, true);
+            }
+        }
+
+        /**
+         * Counts the outermost type of the whole reference {@code a.b.Outer.Inner}, which is the last reference of
+         * the chain. The qualifiers are part of it and not counted apart.
+         */
+        private void count(PsiJavaCodeReferenceElement reference, boolean lastIsMember) {
+            List<String> names = getNames(reference);
+            if (names == null) {
+                return;
+            }
+            int last = lastIsMember ? names.size() - 2 : names.size() - 1;
+            int typeIndex = -1;
+            for (int i = 0; i <= last && typeIndex < 0; i++) {
+                if (Character.isUpperCase(names.get(i).charAt(0))) {
+                    typeIndex = i;
+                }
+            }
+            if (typeIndex < 0) {
+                if (lastIsMember) {
+                    return;
+                }
+                // a type with a lower case name
+                typeIndex = last;
+            }
+            this.counts.merge(names.get(typeIndex), 1, Integer::sum);
+            if (typeIndex > 0) {
+                this.counts.merge(String.join(".", names.subList(0, typeIndex + 1)), 1, Integer::sum);
+            }
+        }
+
+        /**
+         * Returns the names of the qualifiers and the reference, or null if the reference is qualified by something
+         * else than a reference, e.g. by {@code this} or a method call.
+         */
+        @Nullable
+        private static List<String> getNames(PsiJavaCodeReferenceElement reference) {
+            List<String> result = new ArrayList<>();
+            PsiElement current = reference;
+            while (current instanceof PsiJavaCodeReferenceElement) {
+                String name = ((PsiJavaCodeReferenceElement) current).getReferenceName();
+                if (name == null || name.isEmpty()) {
+                    return null;
+                }
+                result.add(0, name);
+                current = ((PsiJavaCodeReferenceElement) current).getQualifier();
+            }
+            return current == null ? result : null;
+        }
+
+        private static boolean isQualifier(PsiJavaCodeReferenceElement reference) {
+            PsiElement parent = reference.getParent();
+            return parent instanceof PsiJavaCodeReferenceElement
+                    && ((PsiJavaCodeReferenceElement) parent).getQualifier() == reference;
+        }
+
+    }
+
+}
@@ -38,11 +38,7 @@ public class ClassFQN extends FQN {
     }
 
     public static boolean isClassFQN(String string) {
-        String[] split = string.split("\\.");
-        if (Character.isUpperCase(split[split.length - 1].charAt(0))) {
-            return true;
-        }
-        return false;
+        return FQNParser.parse(string).getKind() == FQNParser.Kind.CLASS;
     }
 
     public String getFQN() {
@@ -18,20 +18,37 @@ package ch.docksnet.rgraph.fqn;
 
 import java.util.Objects;
 
+/**
+ * An FQN is immutable. Therefore its hash code is computed once, and interned instances (see {@link FQNPool}) are
+ * compared by identity first.
+ */
 public abstract class FQN {
+    private int hash;
+
     abstract public String getFQN();
 
     @Override
     public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
         if (!(other instanceof FQN)) {
             return false;
         }
         FQN otherFqn = (FQN) other;
+        if (hashCode() != otherFqn.hashCode()) {
+            return false;
+        }
         return Objects.equals(this.getFQN(), otherFqn.getFQN());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(getFQN());
+        int h = this.hash;
+        if (h == 0) {
+            h = Objects.hashCode(getFQN());
+            this.hash = h;
+        }
+        return h;
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.fqn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classifies an FQN string and slices it into its parts in a single scan, without regular expressions. The kinds
+ * are checked in the same order as the diagram resolves them: method, field, class and package.
+ * <ul>
+ * <li>method: {@code package.Class#method(Type1,Type2)}</li>
+ * <li>field: {@code package.Class#field}</li>
+ * <li>class: {@code package.Class}, the last segment starts with an upper case letter</li>
+ * <li>package: {@code package.sub}, the last segment starts with a lower case letter</li>
+ * </ul>
+ */
+public class FQNParser {
+
+    public enum Kind {
+        METHOD, FIELD, CLASS, PACKAGE, UNKNOWN
+    }
+
+    private final String fqn;
+    private final Kind kind;
+    private final int hashIndex;
+    private final int openIndex;
+    private final int closeIndex;
+
+    private FQNParser(String fqn, Kind kind, int hashIndex, int openIndex, int closeIndex) {
+        this.fqn = fqn;
+        this.kind = kind;
+        this.hashIndex = hashIndex;
+        this.openIndex = openIndex;
+        this.closeIndex = closeIndex;
+    }
+
+    public static FQNParser parse(String fqn) {
+        int hashIndex = -1;
+        int hashBeforeOpenIndex = -1;
+        int methodHashIndex = -1;
+        int dotIndex = -1;
+        int firstOpenIndex = -1;
+        int lastOpenIndex = -1;
+        int openIndex = -1;
+        int closeIndex = -1;
+        for (int i = 0; i < fqn.length(); i++) {
+            switch (fqn.charAt(i)) {
+                case '#':
+                    hashIndex = i;
+                    break;
+                case '.':
+                    dotIndex = i;
+                    break;
+                case '(':
+                    if (firstOpenIndex < 0) {
+                        firstOpenIndex = i;
+                    }
+                    lastOpenIndex = i;
+                    hashBeforeOpenIndex = hashIndex;
+                    break;
+                case ')':
+                    // like the former pattern (.*)#(.*)\((.*)\): the last ')', the last '(' before it and the last
+                    // '#' before that, so a '#' within the parameters does not split the method
+                    if (lastOpenIndex >= 0) {
+                        closeIndex = i;
+                        openIndex = lastOpenIndex;
+                        methodHashIndex = hashBeforeOpenIndex;
+                    }
+                    break;
+                default:
+            }
+        }
+
+        Kind kind;
+        if (methodHashIndex >= 0) {
+            kind = Kind.METHOD;
+            hashIndex = methodHashIndex;
+        } else if (hashIndex >= 0 && firstOpenIndex < 0) {
+            kind = Kind.FIELD;
+        } else if (dotIndex + 1 < fqn.length() && Character.isUpperCase(fqn.charAt(dotIndex + 1))) {
+            kind = Kind.CLASS;
+        } else if (dotIndex + 1 < fqn.length() && Character.isLowerCase(fqn.charAt(dotIndex + 1))) {
+            kind = Kind.PACKAGE;
+        } else {
+            kind = Kind.UNKNOWN;
+        }
+        return new FQNParser(fqn, kind, hashIndex, openIndex, closeIndex);
+    }
+
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    public String getFQN() {
+        return this.fqn;
+    }
+
+    /**
+     * Returns the class of a method or field, or the whole FQN otherwise.
+     */
+    public String getClassName() {
+        if (this.kind == Kind.METHOD || this.kind == Kind.FIELD) {
+            return this.fqn.substring(0, this.hashIndex);
+        }
+        return this.fqn;
+    }
+
+    /**
+     * Returns the name of a method or field.
+     */
+    public String getMemberName() {
+        checkMember();
+        int end = this.kind == Kind.METHOD ? this.openIndex : this.fqn.length();
+        return this.fqn.substring(this.hashIndex + 1, end);
+    }
+
+    /**
+     * Returns the parameter types of a method as in the FQN, i.e. separated by commas.
+     */
+    public String getParameterString() {
+        checkMethod();
+        return this.fqn.substring(this.openIndex + 1, this.closeIndex);
+    }
+
+    /**
+     * Returns the parameter types of a method, or an empty list for a method without parameters such as
+     * {@code a.B#m()}.
+     */
+    public List<String> getParameters() {
+        checkMethod();
+        if (this.closeIndex == this.openIndex + 1) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        int start = this.openIndex + 1;
+        for (int i = start; i < this.closeIndex; i++) {
+            if (this.fqn.charAt(i) == ',') {
+                result.add(this.fqn.substring(start, i));
+                start = i + 1;
+            }
+        }
+        result.add(this.fqn.substring(start, this.closeIndex));
+        return result;
+    }
+
+    private void checkMember() {
+        if (this.kind != Kind.METHOD && this.kind != Kind.FIELD) {
+            throw new IllegalStateException("Not a member: " + this.fqn);
+        }
+    }
+
+    private void checkMethod() {
+        if (this.kind != Kind.METHOD) {
+            throw new IllegalStateException("Not a method: " + this.fqn);
+        }
+    }
+
+}
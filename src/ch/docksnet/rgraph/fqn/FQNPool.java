@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.fqn;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.containers.Interner;
+
+/**
+ * Shares equal FQNs within a project, so maps keyed by FQNs mostly find their keys by identity and with the cached
+ * hash code. Unused FQNs are released by the garbage collector.
+ * <p>
+ * A {@link FileFQN} is never interned, since it refers to its PSI file, which must not outlive a reparse.
+ */
+public class FQNPool {
+
+    private final Interner<FQN> interner = Interner.createWeakInterner();
+
+    public static FQNPool getInstance(Project project) {
+        return ServiceManager.getService(project, FQNPool.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends FQN> T intern(T fqn) {
+        if (fqn instanceof FileFQN) {
+            return fqn;
+        }
+        FQN interned = this.interner.intern(fqn);
+        // FQNs of different kinds may be equal by their string
+        return interned.getClass() == fqn.getClass() ? (T) interned : fqn;
+    }
+
+}
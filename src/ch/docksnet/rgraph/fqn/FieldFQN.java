@@ -18,9 +18,6 @@ package ch.docksnet.rgraph.fqn;
 
 import com.intellij.psi.PsiField;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * @author Stefan Zeller
  */
@@ -40,15 +37,13 @@ public class FieldFQN extends FQN {
     }
 
     public static FieldFQN create(String string) {
-        Pattern pattern = Pattern.compile("(.*)#(.*)");
-        Matcher matcher = pattern.matcher(string);
-
-        matcher.find();
+        FQNParser parser = FQNParser.parse(string);
 
-        String className = matcher.group(1);
-        String fieldName = matcher.group(2);
+        if (parser.getKind() != FQNParser.Kind.FIELD) {
+            throw new IllegalArgumentException("String does not match the pattern: " + string);
+        }
 
-        return new FieldFQN(className, fieldName);
+        return new FieldFQN(parser.getClassName(), parser.getMemberName());
     }
 
     public String getClassName() {
@@ -70,10 +65,7 @@ public class FieldFQN extends FQN {
     }
 
     public static boolean isFieldFQN(String fqn) {
-        if (fqn.contains("#") && !fqn.contains("(")) {
-            return true;
-        }
-        return false;
+        return FQNParser.parse(fqn).getKind() == FQNParser.Kind.FIELD;
     }
 
 }
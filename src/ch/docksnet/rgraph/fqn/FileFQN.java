@@ -20,12 +20,11 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.util.PsiTreeUtil;
 
-import java.util.Objects;
-
 public class FileFQN extends FQN implements Hierarchically {
     private final String packageName;
     private final String fileName;
     private final PsiJavaFile psiJavaFile;
+    private final String fqn;
 
     private FileFQN(String packageName, String fileName, PsiJavaFile psiJavaFile) {
         this.psiJavaFile = psiJavaFile;
@@ -37,6 +36,7 @@ public class FileFQN extends FQN implements Hierarchically {
         }
         this.packageName = packageName;
         this.fileName = fileName;
+        this.fqn = packageName + "." + fileName;
     }
 
     public static FileFQN from(PsiJavaFile psiJavaFile) {
@@ -65,18 +65,20 @@ public class FileFQN extends FQN implements Hierarchically {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FileFQN fileFQN = (FileFQN) o;
-        return this.packageName.equals(fileFQN.packageName) &&
+        return hashCode() == fileFQN.hashCode() &&
+                this.packageName.equals(fileFQN.packageName) &&
                 this.fileName.equals(fileFQN.fileName);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.packageName, this.fileName);
+        // the cached hash of the FQN, which is consistent with equals, since the FQN is made of package and file name
+        return super.hashCode();
     }
 
     @Override
     public String toString() {
-        return this.packageName + "." + this.fileName;
+        return this.fqn;
     }
 
     public PsiJavaFile getPsiJavaFile() {
@@ -84,6 +86,6 @@ public class FileFQN extends FQN implements Hierarchically {
     }
 
     public String getFQN() {
-        return this.toString();
+        return this.fqn;
     }
 }
@@ -22,17 +22,13 @@ import com.intellij.psi.PsiParameter;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author Stefan Zeller
  */
 public class MethodFQN extends FQN {
-    public static final Pattern METHOD_PATTERN = Pattern.compile("(.*)#(.*)\\((.*)\\)");
     private final String className;
     private final String methodName;
     private final List<String> parameters;
@@ -58,19 +54,14 @@ public class MethodFQN extends FQN {
 
     @NotNull
     public static MethodFQN create(String string) {
-        Matcher matcher = METHOD_PATTERN.matcher(string);
+        FQNParser parser = FQNParser.parse(string);
 
-        if (!matcher.find()) {
+        if (parser.getKind() != FQNParser.Kind.METHOD) {
             throw new IllegalArgumentException("String does not match the pattern: " + string);
         }
 
-        String className = matcher.group(1);
-        String methodName = matcher.group(2);
-        String parameterString = matcher.group(3);
-
-        String[] parameters = parameterString.split(",");
-
-        return new MethodFQN(className, methodName, Arrays.asList(parameters));
+        return new MethodFQN(parser.getClassName(), parser.getMemberName(),
+                Collections.unmodifiableList(parser.getParameters()));
     }
 
     public static MethodFQN create(PsiMethod psiMethod) {
@@ -98,12 +89,7 @@ public class MethodFQN extends FQN {
     }
 
     public static boolean isMethodFQN(String string) {
-        Matcher matcher = METHOD_PATTERN.matcher(string);
-        if (matcher.find()) {
-            return true;
-        } else {
-            return false;
-        }
+        return FQNParser.parse(string).getKind() == FQNParser.Kind.METHOD;
     }
 
     public String getClassName() {
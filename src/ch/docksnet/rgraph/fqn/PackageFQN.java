@@ -38,11 +38,7 @@ public class PackageFQN extends FQN implements Hierarchically {
     }
 
     public static boolean isPackage(String string) {
-        String[] split = string.split("\\.");
-        if (Character.isLowerCase(split[split.length - 1].charAt(0))) {
-            return true;
-        }
-        return false;
+        return FQNParser.parse(string).getKind() == FQNParser.Kind.PACKAGE;
     }
 
     public String getFQN() {
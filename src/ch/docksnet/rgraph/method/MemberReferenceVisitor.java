@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.method;
+
+import ch.docksnet.rgraph.RootMemberResolver;
+import ch.docksnet.utils.IncrementableSet;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiNewExpression;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the references between the members of a class in a single walk over the class. Every reference is
+ * resolved once, and if it points to one of the given members, it is counted for the member that contains the
+ * reference. Like the search, it skips the member part of javadoc references such as {@code {@link #member()}},
+ * which is not a code reference element.
+ */
+class MemberReferenceVisitor extends JavaRecursiveElementVisitor {
+
+    private final RootMemberResolver rootMemberResolver;
+    private final Set<PsiElement> members;
+    private final IncrementableSet<SourceTargetPair> relationships;
+
+    MemberReferenceVisitor(PsiClass psiClass, Collection<PsiElement> members,
+                           IncrementableSet<SourceTargetPair> relationships) {
+        this.rootMemberResolver = new RootMemberResolver(psiClass);
+        this.members = new HashSet<>(members);
+        this.relationships = relationships;
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        ProgressManager.checkCanceled();
+        super.visitElement(element);
+    }
+
+    @Override
+    public void visitReferenceElement(PsiJavaCodeReferenceElement reference) {
+        super.visitReferenceElement(reference);
+        count(reference, reference.resolve());
+    }
+
+    @Override
+    public void visitNewExpression(PsiNewExpression expression) {
+        super.visitNewExpression(expression);
+        // the class reference of a new expression resolves to the class, the constructor has to be resolved apart
+        PsiMethod constructor = expression.resolveConstructor();
+        PsiJavaCodeReferenceElement classReference = expression.getClassOrAnonymousClassReference();
+        if (constructor != null && classReference != null) {
+            count(classReference, constructor);
+        }
+    }
+
+    private void count(PsiElement reference, @Nullable PsiElement callee) {
+        if (callee == null || !this.members.contains(callee)) {
+            return;
+        }
+        PsiElement caller = this.rootMemberResolver.resolve(reference);
+        if (caller == null) {
+            return;
+        }
+        this.relationships.increment(new SourceTargetPair(caller, callee));
+    }
+
+}
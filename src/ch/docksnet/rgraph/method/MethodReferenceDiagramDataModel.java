@@ -16,37 +16,53 @@
 
 package ch.docksnet.rgraph.method;
 
+import ch.docksnet.rgraph.NodeDescriptor;
+import ch.docksnet.rgraph.OuterReferenceSearch;
+import ch.docksnet.rgraph.ParallelSearch;
 import ch.docksnet.rgraph.PsiUtils;
 import ch.docksnet.rgraph.ReferenceDiagramDataModel;
 import ch.docksnet.rgraph.ReferenceDiagramProvider;
+import ch.docksnet.rgraph.ResolutionMode;
+import ch.docksnet.rgraph.RootMemberResolver;
 import ch.docksnet.rgraph.fqn.FQN;
 import ch.docksnet.rgraph.fqn.FileFQN;
+import ch.docksnet.utils.ConcurrentIncrementableSet;
 import ch.docksnet.utils.IncrementableSet;
-import com.intellij.diagram.DiagramCategory;
 import com.intellij.diagram.DiagramEdge;
 import com.intellij.diagram.DiagramNode;
-import com.intellij.diagram.DiagramNodeContentManager;
 import com.intellij.diagram.DiagramRelationshipInfo;
 import com.intellij.diagram.DiagramRelationshipInfoAdapter;
 import com.intellij.diagram.presentation.DiagramLineType;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaRecursiveElementWalkingVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiClassInitializer;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.PsiReferenceExpression;
 import com.intellij.psi.SmartPsiElementPointer;
 import com.intellij.psi.impl.source.tree.CompositePsiElement;
-import com.intellij.psi.search.GlobalSearchScopes;
 import com.intellij.psi.search.LocalSearchScope;
 import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.InheritanceUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @author Stefan Zeller
@@ -61,7 +77,9 @@ public class MethodReferenceDiagramDataModel extends ReferenceDiagramDataModel {
     }
 
     private void init(PsiClass psiClass) {
+        SmartPsiElementPointer<PsiElement> previous = this.baseElement;
         this.baseElement = psiClass == null ? null : createSmartPsiElementPointer(psiClass);
+        releasePointer(previous);
         collectNodes(psiClass);
     }
 
@@ -83,6 +101,15 @@ public class MethodReferenceDiagramDataModel extends ReferenceDiagramDataModel {
         }
     }
 
+    @Override
+    public void dispose() {
+        if (!getProject().isDisposed()) {
+            releasePointer(this.baseElement);
+        }
+        this.baseElement = null;
+        super.dispose();
+    }
+
     @Override
     public void rebuild(PsiElement element) {
         super.rebuild(element);
@@ -103,35 +130,86 @@ public class MethodReferenceDiagramDataModel extends ReferenceDiagramDataModel {
             relationship = createEdgeFromNonField(value == null ? 0 : value);
         }
 
-        return new ReferenceEdge(from, to, relationship);
+        return new ReferenceEdge(from, to, relationship, value == null ? 0 : value);
     }
 
     @NotNull
     @Override
-    protected IncrementableSet<SourceTargetPair> resolveRelationships() {
+    protected IncrementableSet<SourceTargetPair> resolveRelationships(Collection<PsiElement> elements) {
         PsiElement psiElement = getBaseElement();
+        if (ResolutionMode.current().isSinglePass()) {
+            return resolveRelationshipsInSinglePass(elements, Collections.singletonList(psiElement));
+        }
+        return resolveRelationshipsBySearch(elements, new LocalSearchScope(psiElement));
+    }
+
+    @Nullable
+    @Override
+    protected IncrementableSet<SourceTargetPair> resolveRelationshipsFrom(Collection<PsiElement> callers,
+                                                                          Collection<PsiElement> elements) {
+        if (getBaseElement() == null) {
+            return null;
+        }
+        if (ResolutionMode.current().isSinglePass()) {
+            return resolveRelationshipsInSinglePass(elements, callers);
+        }
+        return resolveRelationshipsBySearch(elements, new LocalSearchScope(callers.toArray(PsiElement.EMPTY_ARRAY)));
+    }
+
+    /**
+     * Walks the given scopes once and counts every reference to one of the elements.
+     */
+    @NotNull
+    private IncrementableSet<SourceTargetPair> resolveRelationshipsInSinglePass(Collection<PsiElement> elements,
+                                                                                Collection<PsiElement> scopes) {
         IncrementableSet<SourceTargetPair> incrementableSet = new IncrementableSet<>();
+        MemberReferenceVisitor visitor =
+                new MemberReferenceVisitor((PsiClass) getBaseElement(), elements, incrementableSet);
+        for (PsiElement scope : scopes) {
+            scope.accept(visitor);
+        }
+        return incrementableSet;
+    }
 
-        for (DiagramNode<PsiElement> node : getNodes()) {
-            PsiElement callee = node.getIdentifyingElement();
+    /**
+     * Searches the references to each element in the given scope.
+     */
+    @NotNull
+    private IncrementableSet<SourceTargetPair> resolveRelationshipsBySearch(Collection<PsiElement> elements,
+                                                                            LocalSearchScope searchScope) {
+        RootMemberResolver rootMemberResolver = new RootMemberResolver((PsiClass) getBaseElement());
 
-            Collection<PsiReference> all = ReferencesSearch.search(callee, new LocalSearchScope
-                    (psiElement)).findAll();
+        if (ResolutionMode.current() == ResolutionMode.PARALLEL_SEARCH) {
+            ConcurrentIncrementableSet<SourceTargetPair> concurrentSet = new ConcurrentIncrementableSet<>();
+            ParallelSearch.forEach(elements,
+                    callee -> searchReferences(rootMemberResolver, callee, searchScope, concurrentSet::increment));
+            return concurrentSet.toIncrementableSet();
+        }
 
-            for (PsiReference psiReference : all) {
-                if (!(psiReference instanceof CompositePsiElement)) {
-                    continue;
-                }
-                PsiElement caller = PsiUtils.getRootPsiElement((PsiClass) psiElement, (CompositePsiElement) psiReference);
+        IncrementableSet<SourceTargetPair> incrementableSet = new IncrementableSet<>();
+        for (PsiElement callee : elements) {
+            ProgressManager.checkCanceled();
+            searchReferences(rootMemberResolver, callee, searchScope, incrementableSet::increment);
+        }
+        return incrementableSet;
+    }
 
-                if (caller == null) {
-                    continue;
-                }
+    static void searchReferences(RootMemberResolver rootMemberResolver, PsiElement callee,
+                                 LocalSearchScope searchScope, Consumer<SourceTargetPair> relationships) {
+        Collection<PsiReference> all = ReferencesSearch.search(callee, searchScope).findAll();
 
-                incrementableSet.increment(new SourceTargetPair(caller, callee));
+        for (PsiReference psiReference : all) {
+            if (!(psiReference instanceof CompositePsiElement)) {
+                continue;
             }
+            PsiElement caller = rootMemberResolver.resolve((CompositePsiElement) psiReference);
+
+            if (caller == null) {
+                continue;
+            }
+
+            relationships.accept(new SourceTargetPair(caller, callee));
         }
-        return incrementableSet;
     }
 
     @Nullable
@@ -149,6 +227,92 @@ public class MethodReferenceDiagramDataModel extends ReferenceDiagramDataModel {
         }
     }
 
+    @Nullable
+    @Override
+    protected String getGraphCacheKey() {
+        PsiElement psiClass = getBaseElement();
+        if (!(psiClass instanceof PsiClass) || ((PsiClass) psiClass).getQualifiedName() == null) {
+            return null;
+        }
+        return "class:" + ((PsiClass) psiClass).getQualifiedName();
+    }
+
+    /**
+     * Besides the file of the class, the relationships depend on the files of its supertypes, whose members may be
+     * found instead of the ones of the class, and on the files of the types it uses, which decide the overload a call
+     * resolves to. Of these, only the files of the project are taken, libraries are not expected to change.
+     */
+    @Override
+    protected Collection<VirtualFile> getGraphCacheDependencies() {
+        PsiElement psiClass = getBaseElement();
+        if (!(psiClass instanceof PsiClass) || psiClass.getContainingFile().getVirtualFile() == null) {
+            return Collections.emptyList();
+        }
+        Set<PsiClass> types = new LinkedHashSet<>();
+        addWithSupers(types, (PsiClass) psiClass);
+        psiClass.accept(new JavaRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                ProgressManager.checkCanceled();
+                super.visitElement(element);
+            }
+
+            @Override
+            public void visitReferenceExpression(PsiReferenceExpression expression) {
+                // the references to members are what the diagram resolves itself, only the types are needed here
+                visitElement(expression);
+            }
+
+            @Override
+            public void visitReferenceElement(PsiJavaCodeReferenceElement reference) {
+                super.visitReferenceElement(reference);
+                PsiElement type = reference.resolve();
+                if (type instanceof PsiClass) {
+                    addWithSupers(types, (PsiClass) type);
+                }
+            }
+        });
+
+        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(getProject()).getFileIndex();
+        Set<VirtualFile> result = new LinkedHashSet<>();
+        result.add(psiClass.getContainingFile().getVirtualFile());
+        for (PsiClass type : types) {
+            PsiFile file = type.getContainingFile();
+            VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+            if (virtualFile != null && fileIndex.isInContent(virtualFile)) {
+                result.add(virtualFile);
+            }
+        }
+        return result;
+    }
+
+    private static void addWithSupers(Set<PsiClass> types, PsiClass psiClass) {
+        if (types.add(psiClass)) {
+            types.addAll(InheritanceUtil.getSuperClasses(psiClass));
+        }
+    }
+
+    @Nullable
+    @Override
+    protected PsiElement findChangedMember(@NotNull PsiElement changed) {
+        PsiElement psiClass = getBaseElement();
+        if (!(psiClass instanceof PsiClass) || !changed.isValid()
+                || !psiClass.getContainingFile().equals(changed.getContainingFile())) {
+            return null;
+        }
+        PsiElement member = PsiUtils.getRootPsiElement((PsiClass) psiClass, changed);
+        if (member == null || !PsiUtils.isInsideBody(member, changed)) {
+            return null;
+        }
+        return member;
+    }
+
+    @Override
+    protected boolean isOutsideOfGraph(@Nullable PsiFile file) {
+        PsiElement psiClass = getBaseElement();
+        return file != null && psiClass != null && !file.equals(psiClass.getContainingFile());
+    }
+
     @Override
     protected FQN getBaseForOuterReferences(PsiElement psiElement) {
         return FileFQN.from((PsiJavaFile) psiElement.getContainingFile());
@@ -157,18 +321,13 @@ public class MethodReferenceDiagramDataModel extends ReferenceDiagramDataModel {
     @NotNull
     @Override
     protected Collection<PsiReference> resolveOuterReferences(PsiElement callee) {
-        return ReferencesSearch.search(callee, GlobalSearchScopes.projectProductionScope(getProject())).findAll();
+        return OuterReferenceSearch.search(callee, getProject());
     }
 
     @Override
-    protected boolean isAllowedToShow(PsiElement psiElement) {
+    protected boolean isAllowedToShow(PsiElement psiElement, int enabledMask) {
         if (psiElement != null && psiElement.isValid()) {
-            DiagramNodeContentManager nodeContentManager = getNodeContentManager();
-            for (DiagramCategory enabledCategory : nodeContentManager.getEnabledCategories()) {
-                if (nodeContentManager.isInCategory(psiElement, enabledCategory)) {
-                    return true;
-                }
-            }
+            return (NodeDescriptor.of(psiElement).getCategoryMask() & enabledMask) != 0;
         }
         return false;
     }
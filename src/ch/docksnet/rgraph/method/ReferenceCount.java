@@ -18,28 +18,21 @@ package ch.docksnet.rgraph.method;
 
 import ch.docksnet.rgraph.fqn.FileFQN;
 import ch.docksnet.rgraph.fqn.FileFQNReference;
+import ch.docksnet.utils.IncrementableSet;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ReferenceCount {
-    private final Map<FileFQN, Integer> references = new HashMap<>();
+    private final IncrementableSet<FileFQN> references = new IncrementableSet<>();
 
     public void increment(FileFQN fileFQN) {
-        if (!this.references.containsKey(fileFQN)) {
-            this.references.put(fileFQN, 0);
-        }
-        this.references.put(fileFQN, this.references.get(fileFQN) + 1);
+        this.references.increment(fileFQN);
     }
 
     public List<FileFQNReference> referenceList() {
-        List<FileFQNReference> list = new ArrayList<>();
-        for (FileFQN it : this.references.keySet()) {
-            int count = this.references.get(it);
-            list.add(new FileFQNReference(it, count));
-        }
+        List<FileFQNReference> list = new ArrayList<>(this.references.size());
+        this.references.forEach((it, count) -> list.add(new FileFQNReference(it, (int) count)));
         return list;
     }
 
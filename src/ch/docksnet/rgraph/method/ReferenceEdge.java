@@ -26,10 +26,32 @@ import com.intellij.psi.PsiElement;
  */
 public class ReferenceEdge extends DiagramEdgeBase<PsiElement> {
 
+    private final long count;
+    private boolean marked;
 
     public ReferenceEdge(DiagramNode<PsiElement> source, DiagramNode<PsiElement> target,
-                         DiagramRelationshipInfo relationship) {
+                         DiagramRelationshipInfo relationship, long count) {
         super(source, target, relationship);
+        this.count = count;
+    }
+
+    /**
+     * Returns the number of references this edge stands for.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    public boolean isMarked() {
+        return this.marked;
+    }
+
+    public void setMarked() {
+        this.marked = true;
+    }
+
+    public void unsetMarked() {
+        this.marked = false;
     }
 
     public enum Type {
@@ -16,12 +16,10 @@
 
 package ch.docksnet.rgraph.method;
 
+import ch.docksnet.rgraph.NodeDescriptor;
 import com.intellij.diagram.DiagramProvider;
 import com.intellij.diagram.PsiDiagramNode;
-import com.intellij.openapi.util.Iconable;
 import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiMethod;
-import com.intellij.uml.UmlIcons;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -51,10 +49,14 @@ public class ReferenceNode extends PsiDiagramNode<PsiElement> {
 
     @Override
     public Icon getIcon() {
-        if (getIdentifyingElement() instanceof PsiMethod && ((PsiMethod) getIdentifyingElement()).isConstructor()) {
-            return UmlIcons.Constructor;
-        }
-        return getElement().getIcon(Iconable.ICON_FLAG_VISIBILITY);
+        return getDescriptor().getIcon();
+    }
+
+    /**
+     * Returns the descriptor of the element of this node, which is cached until the element changes.
+     */
+    public NodeDescriptor getDescriptor() {
+        return NodeDescriptor.of(getIdentifyingElement());
     }
 
     public boolean isMarked() {
@@ -22,6 +22,7 @@ import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.openapi.wm.ex.ToolWindowManagerListener;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
 import org.jetbrains.annotations.NotNull;
@@ -37,6 +38,18 @@ public class ReferenceToolWindow implements ToolWindowFactory {
         create(toolWindow, contentFactory, ServiceManager.getService(project, ProjectService.class).getSamePackageReferences());
         create(toolWindow, contentFactory, ServiceManager.getService(project, ProjectService.class).getSameHierarchieReferences());
         create(toolWindow, contentFactory, ServiceManager.getService(project, ProjectService.class).getOtherHierarchieReferences());
+
+        // the outer references are only computed while someone looks at them
+        project.getMessageBus().connect(toolWindow.getDisposable()).subscribe(ToolWindowManagerListener.TOPIC,
+                new ToolWindowManagerListener() {
+                    @Override
+                    public void toolWindowShown(@NotNull ToolWindow shownToolWindow) {
+                        if (ID.equals(shownToolWindow.getId())) {
+                            ServiceManager.getService(project, ProjectService.class).requestOuterReferences();
+                        }
+                    }
+                });
+        ServiceManager.getService(project, ProjectService.class).requestOuterReferences();
     }
 
     private void create(@NotNull ToolWindow toolWindow, ContentFactory contentFactory, ReferenceListToolWindow window) {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe variant of {@link IncrementableSet} for counting from several threads at once. Counters of
+ * different elements do not block each other, and concurrent increments of the same element are striped.
+ */
+public class ConcurrentIncrementableSet<T> {
+
+    private final ConcurrentHashMap<T, LongAdder> map = new ConcurrentHashMap<>();
+
+    public long get(T element) {
+        LongAdder count = this.map.get(element);
+        if (count == null) {
+            return 0;
+        }
+        return count.sum();
+    }
+
+    public void increment(T element) {
+        this.map.computeIfAbsent(element, it -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns the counts as {@link IncrementableSet}. Must not be called while increments are still going on.
+     */
+    public IncrementableSet<T> toIncrementableSet() {
+        IncrementableSet<T> result = new IncrementableSet<>();
+        for (Map.Entry<T, LongAdder> entry : this.map.entrySet()) {
+            result.increment(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+}
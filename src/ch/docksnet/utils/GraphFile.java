@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A weighted graph as stored on disk: the ids of its elements, the edges between them and the files it was computed
+ * from. The file starts with the key of the graph, so a graph is never taken for the one of another key with the
+ * same file name.
+ */
+public class GraphFile {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".graph";
+
+    private final List<String> ids;
+    private final List<Dependency> dependencies = new ArrayList<>();
+    private final List<int[]> edges = new ArrayList<>();
+    private final List<Long> counts = new ArrayList<>();
+
+    public GraphFile(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public void addEdge(int source, int target, long count) {
+        this.edges.add(new int[]{source, target});
+        this.counts.add(count);
+    }
+
+    public void addDependency(Dependency dependency) {
+        this.dependencies.add(dependency);
+    }
+
+    public List<String> getIds() {
+        return Collections.unmodifiableList(this.ids);
+    }
+
+    public List<Dependency> getDependencies() {
+        return Collections.unmodifiableList(this.dependencies);
+    }
+
+    public int getEdgeCount() {
+        return this.edges.size();
+    }
+
+    public int getSource(int edge) {
+        return this.edges.get(edge)[0];
+    }
+
+    public int getTarget(int edge) {
+        return this.edges.get(edge)[1];
+    }
+
+    public long getCount(int edge) {
+        return this.counts.get(edge);
+    }
+
+    /**
+     * Returns the name of the file a graph with the given key is stored in.
+     */
+    public static String getFileName(String key) {
+        return Integer.toHexString(key.hashCode()) + SUFFIX;
+    }
+
+    /**
+     * Writes the graph to a temporary file first and moves it in place, so a reader never sees a partial file.
+     */
+    public void write(Path path, String key) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+
+            out.writeInt(this.dependencies.size());
+            for (Dependency dependency : this.dependencies) {
+                out.writeUTF(dependency.getPath());
+                out.writeLong(dependency.getLength());
+                out.writeLong(dependency.getTimeStamp());
+                out.writeLong(dependency.getHash());
+            }
+
+            out.writeInt(this.ids.size());
+            for (String id : this.ids) {
+                out.writeUTF(id);
+            }
+
+            out.writeInt(this.edges.size());
+            for (int i = 0; i < this.edges.size(); i++) {
+                out.writeInt(getSource(i));
+                out.writeInt(getTarget(i));
+                out.writeLong(getCount(i));
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the graph stored for the key.
+     *
+     * @return null if the file belongs to another key or format version, or if one of its dependencies changed.
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public static GraphFile read(Path path, String key, DependencyChecker checker) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+
+            int dependencyCount = readSize(in);
+            List<Dependency> dependencies = new ArrayList<>(dependencyCount);
+            for (int i = 0; i < dependencyCount; i++) {
+                Dependency dependency = new Dependency(in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+                if (!checker.isUnchanged(dependency)) {
+                    return null;
+                }
+                dependencies.add(dependency);
+            }
+
+            int idCount = readSize(in);
+            List<String> ids = new ArrayList<>(idCount);
+            for (int i = 0; i < idCount; i++) {
+                ids.add(in.readUTF());
+            }
+
+            GraphFile result = new GraphFile(ids);
+            dependencies.forEach(result::addDependency);
+            int edgeCount = readSize(in);
+            for (int i = 0; i < edgeCount; i++) {
+                int source = in.readInt();
+                int target = in.readInt();
+                long count = in.readLong();
+                if (source < 0 || source >= idCount || target < 0 || target >= idCount || count <= 0) {
+                    throw new IOException("Corrupt edge in " + path);
+                }
+                result.addEdge(source, target, count);
+            }
+            if (in.read() != -1) {
+                throw new IOException("Trailing data in " + path);
+            }
+            return result;
+        }
+    }
+
+    private static int readSize(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Corrupt size " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Marks the file as used, so it is the last one to be evicted.
+     */
+    public static void touch(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * Deletes the least recently used graph files of the directory, until at most {@code maxFiles} files with at most
+     * {@code maxBytes} in total are left.
+     *
+     * @return the number of deleted files.
+     */
+    public static int evict(Path directory, int maxFiles, long maxBytes) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            times.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing((Path file) -> times.get(file)).reversed());
+
+        int kept = 0;
+        long bytes = 0;
+        int deleted = 0;
+        for (Path file : files) {
+            long size = Files.size(file);
+            if (kept < maxFiles && bytes + size <= maxBytes) {
+                kept++;
+                bytes += size;
+            } else if (Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * A file a graph was computed from, with its state at that time.
+     */
+    public static class Dependency {
+        private final String path;
+        private final long length;
+        private final long timeStamp;
+        private final long hash;
+
+        public Dependency(String path, long length, long timeStamp, long hash) {
+            this.path = path;
+            this.length = length;
+            this.timeStamp = timeStamp;
+            this.hash = hash;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        public long getTimeStamp() {
+            return this.timeStamp;
+        }
+
+        public long getHash() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * Compares a dependency of a stored graph with the current state of its file.
+     */
+    public interface DependencyChecker {
+        boolean isUnchanged(Dependency dependency) throws IOException;
+    }
+
+}
@@ -16,37 +16,92 @@
 
 package ch.docksnet.utils;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.ObjLongConsumer;
 
 /**
+ * Counts how often elements are added. The counts are kept in primitive slots of an open addressing hash table, so
+ * an increment needs a single lookup and does not allocate, unless the table has to grow.
+ *
  * @author Stefan Zeller
  */
 public class IncrementableSet<T> {
 
-    private final HashMap<T, Long> map = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] keys = new Object[INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private int size = 0;
 
     public long get(T element) {
-        if (this.map.containsKey(element)) {
-            return this.map.get(element);
-        } else {
+        int index = indexOf(element);
+        if (this.keys[index] == null) {
             return 0;
+        } else {
+            return this.counts[index];
         }
     }
 
     public void increment(T element) {
-        if (this.map.containsKey(element)) {
-            long count = this.map.get(element);
-            count += 1;
-            this.map.put(element, count);
+        increment(element, 1);
+    }
+
+    public void increment(T element, long count) {
+        int index = indexOf(element);
+        if (this.keys[index] == null) {
+            this.keys[index] = element;
+            this.counts[index] = count;
+            this.size += 1;
+            if (this.size * 2 > this.keys.length) {
+                grow();
+            }
         } else {
-            this.map.put(element, 1L);
+            this.counts[index] += count;
         }
     }
 
-    public Set<Map.Entry<T, Long>> elements() {
-        return this.map.entrySet();
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Passes every element with its count to {@code action}.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super T> action) {
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != null) {
+                action.accept((T) this.keys[i], this.counts[i]);
+            }
+        }
+    }
+
+    private int indexOf(Object element) {
+        PreConditionUtil.assertTrue(element != null, "Element must be set");
+        int mask = this.keys.length - 1;
+        int index = mix(element.hashCode()) & mask;
+        while (this.keys[index] != null && !this.keys[index].equals(element)) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        Object[] oldKeys = this.keys;
+        long[] oldCounts = this.counts;
+        this.keys = new Object[oldKeys.length * 2];
+        this.counts = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                this.keys[index] = oldKeys[i];
+                this.counts[index] = oldCounts[i];
+            }
+        }
     }
 
 }
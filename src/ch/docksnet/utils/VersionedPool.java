@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reuses values per key, but only as long as they are still in use. Every lookup stamps the entry with the current
+ * version, and {@link #prune()} drops the entries that were not looked up since the previous prune. Thus a pool that
+ * is pruned after each rebuild holds exactly the values of the last rebuild, and no keys of earlier ones.
+ */
+public class VersionedPool<K, V> {
+
+    private final Map<K, Entry<V>> entries = new HashMap<>();
+    private int version;
+
+    /**
+     * Returns the value of the key, or creates it with {@code factory} if there is none.
+     */
+    public V get(K key, Function<? super K, ? extends V> factory) {
+        Entry<V> entry = this.entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(factory.apply(key));
+            this.entries.put(key, entry);
+        }
+        entry.version = this.version;
+        return entry.value;
+    }
+
+    /**
+     * Removes the entries which were not looked up in the current version and starts a new version.
+     *
+     * @return the number of removed entries.
+     */
+    public int prune() {
+        int removed = 0;
+        Iterator<Entry<V>> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().version != this.version) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        this.version++;
+        return removed;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private int version;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -16,46 +16,42 @@
 
 package ch.docksnet.utils.lcom;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
 
 /**
  * @author Stefan Zeller
  */
 public class CalleesSubgraphAnalyzer {
 
-    private final LCOMAnalyzerData data;
+    private final LCOMGraph<?> graph;
 
-    public CalleesSubgraphAnalyzer(LCOMAnalyzerData data) {
-        this.data = data;
+    public CalleesSubgraphAnalyzer(LCOMGraph<?> graph) {
+        this.graph = graph;
     }
 
-    public List<LCOMNode> getCallees(LCOMNode root) {
-        final List<LCOMNode> result = new ArrayList<>();
+    /**
+     * Returns the ids of {@code root} and all its transitive callees.
+     */
+    public BitSet getCallees(int root) {
+        final BitSet result = new BitSet(this.graph.size());
         visitCallees(root, result);
         return result;
     }
 
-    private void visitCallees(LCOMNode node, List<LCOMNode> visited) {
-        if (isNotVisited(node)) {
-            markVisited(node);
-            visited.add(node);
-            for (LCOMNode callee : node.getCallees()) {
-                visitCallees(callee, visited);
+    private void visitCallees(int root, BitSet visited) {
+        IntStack stack = new IntStack(this.graph.size());
+        visited.set(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            int id = stack.pop();
+            for (int i = this.graph.calleeOffsets[id]; i < this.graph.calleeOffsets[id + 1]; i++) {
+                int callee = this.graph.callees[i];
+                if (!visited.get(callee)) {
+                    visited.set(callee);
+                    stack.push(callee);
+                }
             }
         }
     }
 
-    private boolean isNotVisited(LCOMNode node) {
-        return !isVisited(node);
-    }
-
-    private Boolean isVisited(LCOMNode node) {
-        return data.getNodeMarker().get(node.getFqn());
-    }
-
-    private void markVisited(LCOMNode node) {
-        data.getNodeMarker().put(node.getFqn(), true);
-    }
-
 }
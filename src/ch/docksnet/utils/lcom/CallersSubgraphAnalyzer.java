@@ -16,46 +16,42 @@
 
 package ch.docksnet.utils.lcom;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
 
 /**
  * @author Stefan Zeller
  */
 public class CallersSubgraphAnalyzer {
 
-    private final LCOMAnalyzerData data;
+    private final LCOMGraph<?> graph;
 
-    public CallersSubgraphAnalyzer(LCOMAnalyzerData data) {
-        this.data = data;
+    public CallersSubgraphAnalyzer(LCOMGraph<?> graph) {
+        this.graph = graph;
     }
 
-    public List<LCOMNode> getCallees(LCOMNode root) {
-        final List<LCOMNode> result = new ArrayList<>();
+    /**
+     * Returns the ids of {@code root} and all its transitive callers.
+     */
+    public BitSet getCallers(int root) {
+        final BitSet result = new BitSet(this.graph.size());
         visitCallers(root, result);
         return result;
     }
 
-    private void visitCallers(LCOMNode node, List<LCOMNode> visited) {
-        if (isNotVisited(node)) {
-            markVisited(node);
-            visited.add(node);
-            for (LCOMNode callee : node.getCallers()) {
-                visitCallers(callee, visited);
+    private void visitCallers(int root, BitSet visited) {
+        IntStack stack = new IntStack(this.graph.size());
+        visited.set(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            int id = stack.pop();
+            for (int i = this.graph.callerOffsets[id]; i < this.graph.callerOffsets[id + 1]; i++) {
+                int caller = this.graph.callers[i];
+                if (!visited.get(caller)) {
+                    visited.set(caller);
+                    stack.push(caller);
+                }
             }
         }
     }
 
-    private boolean isNotVisited(LCOMNode node) {
-        return !isVisited(node);
-    }
-
-    private Boolean isVisited(LCOMNode node) {
-        return data.getNodeMarker().get(node.getFqn());
-    }
-
-    private void markVisited(LCOMNode node) {
-        data.getNodeMarker().put(node.getFqn(), true);
-    }
-
 }
@@ -16,6 +16,8 @@
 
 package ch.docksnet.utils.lcom;
 
+import java.util.BitSet;
+
 /**
  * Count independend clusters of a graph. Two clusters are independend of each other, if there is no connection
  * between them. I.e. Two clusters of methods, fields that have no dependency between each other.
@@ -24,45 +26,44 @@ package ch.docksnet.utils.lcom;
  */
 public class ClusterAnalyzer {
 
-    private final LCOMAnalyzerData data;
+    private final LCOMGraph<?> graph;
 
-    public ClusterAnalyzer(LCOMAnalyzerData data) {
-        this.data = data;
+    public ClusterAnalyzer(LCOMGraph<?> graph) {
+        this.graph = graph;
     }
 
     public long countCluster() {
+        BitSet visited = new BitSet(this.graph.size());
+        IntStack stack = new IntStack(this.graph.size());
         long result = 0;
-        for (LCOMNode node : data.getNodeRegistry().values()) {
-            if (isNotVisited(node)) {
+        for (int id = 0; id < this.graph.size(); id++) {
+            if (!visited.get(id)) {
                 result += 1;
-                visitCluster(node);
+                visitCluster(id, visited, stack);
             }
         }
         return result;
     }
 
-    private void visitCluster(LCOMNode node) {
-        if (isNotVisited(node)) {
-            markVisited(node);
-            for (LCOMNode caller : node.getCallers()) {
-                visitCluster(caller);
+    private void visitCluster(int root, BitSet visited, IntStack stack) {
+        visited.set(root);
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            int id = stack.pop();
+            for (int i = this.graph.callerOffsets[id]; i < this.graph.callerOffsets[id + 1]; i++) {
+                push(this.graph.callers[i], visited, stack);
             }
-            for (LCOMNode callee : node.getCallees()) {
-                visitCluster(callee);
+            for (int i = this.graph.calleeOffsets[id]; i < this.graph.calleeOffsets[id + 1]; i++) {
+                push(this.graph.callees[i], visited, stack);
             }
         }
     }
 
-    private boolean isNotVisited(LCOMNode node) {
-        return !isVisited(node);
-    }
-
-    private Boolean isVisited(LCOMNode node) {
-        return data.getNodeMarker().get(node.getFqn());
-    }
-
-    private void markVisited(LCOMNode node) {
-        data.getNodeMarker().put(node.getFqn(), true);
+    private static void push(int id, BitSet visited, IntStack stack) {
+        if (!visited.get(id)) {
+            visited.set(id);
+            stack.push(id);
+        }
     }
 
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Keeps the independent clusters of a graph up to date while nodes are removed. The clusters are built once by a
+ * disjoint-set union over all edges. Removing nodes only recomputes the clusters which contained a removed node, all
+ * other clusters are left as they are.
+ *
+ * @see ClusterAnalyzer
+ */
+public class ClusterCounter {
+
+    private final LCOMGraph<?> graph;
+    private final BitSet removed;
+    private final int[] clusterOf;
+    private final List<int[]> clusters = new ArrayList<>();
+    private int clusterCount = 0;
+
+    public ClusterCounter(LCOMGraph<?> graph) {
+        this.graph = graph;
+        this.removed = new BitSet(graph.size());
+        this.clusterOf = new int[graph.size()];
+        init();
+    }
+
+    private void init() {
+        int size = this.graph.size();
+        int[] parent = new int[size];
+        int[] rank = new int[size];
+        for (int id = 0; id < size; id++) {
+            parent[id] = id;
+        }
+        for (int source = 0; source < size; source++) {
+            for (int i = this.graph.calleeOffsets[source]; i < this.graph.calleeOffsets[source + 1]; i++) {
+                union(parent, rank, source, this.graph.callees[i]);
+            }
+        }
+
+        int[] clusterOfRoot = new int[size];
+        Arrays.fill(clusterOfRoot, -1);
+        int[] clusterSizes = new int[size];
+        for (int id = 0; id < size; id++) {
+            int root = find(parent, id);
+            if (clusterOfRoot[root] < 0) {
+                clusterOfRoot[root] = this.clusterCount++;
+            }
+            this.clusterOf[id] = clusterOfRoot[root];
+            clusterSizes[this.clusterOf[id]] += 1;
+        }
+
+        int[] fill = new int[this.clusterCount];
+        for (int cluster = 0; cluster < this.clusterCount; cluster++) {
+            this.clusters.add(new int[clusterSizes[cluster]]);
+        }
+        for (int id = 0; id < size; id++) {
+            int cluster = this.clusterOf[id];
+            this.clusters.get(cluster)[fill[cluster]++] = id;
+        }
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private static void union(int[] parent, int[] rank, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA] += 1;
+        }
+    }
+
+    public int getClusterCount() {
+        return this.clusterCount;
+    }
+
+    public boolean isRemoved(int id) {
+        return this.removed.get(id);
+    }
+
+    /**
+     * Removes the given nodes together with their edges. Each cluster containing one of them is split up once.
+     */
+    public void removeAll(int... ids) {
+        BitSet affected = new BitSet(this.clusters.size());
+        for (int id : ids) {
+            if (!this.removed.get(id)) {
+                this.removed.set(id);
+                affected.set(this.clusterOf[id]);
+            }
+        }
+        for (int cluster = affected.nextSetBit(0); cluster >= 0; cluster = affected.nextSetBit(cluster + 1)) {
+            split(cluster);
+        }
+    }
+
+    private void split(int cluster) {
+        int[] members = this.clusters.get(cluster);
+        this.clusters.set(cluster, null);
+        this.clusterCount -= 1;
+
+        IntStack stack = new IntStack(members.length);
+        int[] buffer = new int[members.length];
+        for (int member : members) {
+            if (this.removed.get(member) || this.clusterOf[member] != cluster) {
+                continue;
+            }
+            int newCluster = this.clusters.size();
+            int newSize = 0;
+            this.clusterOf[member] = newCluster;
+            stack.push(member);
+            while (!stack.isEmpty()) {
+                int id = stack.pop();
+                buffer[newSize++] = id;
+                for (int i = this.graph.callerOffsets[id]; i < this.graph.callerOffsets[id + 1]; i++) {
+                    visit(this.graph.callers[i], cluster, newCluster, stack);
+                }
+                for (int i = this.graph.calleeOffsets[id]; i < this.graph.calleeOffsets[id + 1]; i++) {
+                    visit(this.graph.callees[i], cluster, newCluster, stack);
+                }
+            }
+            this.clusters.add(Arrays.copyOf(buffer, newSize));
+            this.clusterCount += 1;
+        }
+    }
+
+    private void visit(int id, int oldCluster, int newCluster, IntStack stack) {
+        if (!this.removed.get(id) && this.clusterOf[id] == oldCluster) {
+            this.clusterOf[id] = newCluster;
+            stack.push(id);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of node ids, used instead of recursion to traverse graphs of arbitrary depth.
+ */
+class IntStack {
+
+    private int[] elements;
+    private int size = 0;
+
+    IntStack(int initialCapacity) {
+        this.elements = new int[Math.max(initialCapacity, 16)];
+    }
+
+    void push(int element) {
+        if (this.size == this.elements.length) {
+            this.elements = Arrays.copyOf(this.elements, this.size * 2);
+        }
+        this.elements[this.size++] = element;
+    }
+
+    int peek() {
+        return this.elements[this.size - 1];
+    }
+
+    int pop() {
+        return this.elements[--this.size];
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+}
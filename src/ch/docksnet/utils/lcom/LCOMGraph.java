@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import ch.docksnet.utils.PreConditionUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directed graph with dense node ids {@code 0..size()-1}. Callees and callers of every node are stored in compressed
+ * sparse rows: the neighbours of node {@code id} are {@code callees[calleeOffsets[id]..calleeOffsets[id + 1]]}, the
+ * same applies to the callers. Every edge to a callee has a weight, i.e. the number of references it stands for.
+ */
+public class LCOMGraph<T> {
+
+    private final Object[] elements;
+    private final LCOMNode.Type[] types;
+    private final Map<T, Integer> ids;
+
+    final int[] calleeOffsets;
+    final int[] callees;
+    final long[] calleeWeights;
+    final int[] callerOffsets;
+    final int[] callers;
+
+    private LCOMGraph(Object[] elements, LCOMNode.Type[] types, Map<T, Integer> ids, int[] calleeOffsets,
+                      int[] callees, long[] calleeWeights, int[] callerOffsets, int[] callers) {
+        this.elements = elements;
+        this.types = types;
+        this.ids = ids;
+        this.calleeOffsets = calleeOffsets;
+        this.callees = callees;
+        this.calleeWeights = calleeWeights;
+        this.callerOffsets = callerOffsets;
+        this.callers = callers;
+    }
+
+    public int size() {
+        return this.elements.length;
+    }
+
+    public int edgeCount() {
+        return this.callees.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getElement(int id) {
+        return (T) this.elements[id];
+    }
+
+    public LCOMNode.Type getType(int id) {
+        return this.types[id];
+    }
+
+    /**
+     * Returns the id of {@code element} or {@code -1}, if it is not part of this graph.
+     */
+    public int idOf(Object element) {
+        Integer id = this.ids.get(element);
+        return id == null ? -1 : id;
+    }
+
+    public static class Builder<T> {
+
+        private final List<T> elements = new ArrayList<>();
+        private final List<LCOMNode.Type> types = new ArrayList<>();
+        private final Map<T, Integer> ids = new HashMap<>();
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private long[] weights = new long[16];
+        private int edgeCount = 0;
+
+        /**
+         * Adds {@code element} and returns its id. An element which was already added keeps its id.
+         */
+        public int addNode(T element, LCOMNode.Type type) {
+            PreConditionUtil.assertTrue(element != null, "Element must be set");
+            PreConditionUtil.assertTrue(type != null, "Type must be set");
+            Integer id = this.ids.get(element);
+            if (id != null) {
+                return id;
+            }
+            int newId = this.elements.size();
+            this.elements.add(element);
+            this.types.add(type);
+            this.ids.put(element, newId);
+            return newId;
+        }
+
+        public int idOf(T element) {
+            Integer id = this.ids.get(element);
+            return id == null ? -1 : id;
+        }
+
+        public void addEdge(int source, int target) {
+            addEdge(source, target, 1);
+        }
+
+        public void addEdge(int source, int target, long weight) {
+            PreConditionUtil.assertTrue(source >= 0 && source < this.elements.size(), "Unknown source " + source);
+            PreConditionUtil.assertTrue(target >= 0 && target < this.elements.size(), "Unknown target " + target);
+            if (this.edgeCount == this.sources.length) {
+                this.sources = Arrays.copyOf(this.sources, this.edgeCount * 2);
+                this.targets = Arrays.copyOf(this.targets, this.edgeCount * 2);
+                this.weights = Arrays.copyOf(this.weights, this.edgeCount * 2);
+            }
+            this.sources[this.edgeCount] = source;
+            this.targets[this.edgeCount] = target;
+            this.weights[this.edgeCount] = weight;
+            this.edgeCount += 1;
+        }
+
+        public LCOMGraph<T> build() {
+            int size = this.elements.size();
+            int[] calleeOffsets = new int[size + 1];
+            int[] callerOffsets = new int[size + 1];
+            for (int i = 0; i < this.edgeCount; i++) {
+                calleeOffsets[this.sources[i] + 1] += 1;
+                callerOffsets[this.targets[i] + 1] += 1;
+            }
+            for (int id = 0; id < size; id++) {
+                calleeOffsets[id + 1] += calleeOffsets[id];
+                callerOffsets[id + 1] += callerOffsets[id];
+            }
+
+            int[] callees = new int[this.edgeCount];
+            long[] calleeWeights = new long[this.edgeCount];
+            int[] callers = new int[this.edgeCount];
+            int[] calleeFill = Arrays.copyOf(calleeOffsets, size);
+            int[] callerFill = Arrays.copyOf(callerOffsets, size);
+            for (int i = 0; i < this.edgeCount; i++) {
+                int position = calleeFill[this.sources[i]]++;
+                callees[position] = this.targets[i];
+                calleeWeights[position] = this.weights[i];
+                callers[callerFill[this.targets[i]]++] = this.sources[i];
+            }
+
+            return new LCOMGraph<>(this.elements.toArray(), this.types.toArray(new LCOMNode.Type[0]),
+                    new HashMap<>(this.ids), calleeOffsets, callees, calleeWeights, callerOffsets,
+                    callers);
+        }
+
+    }
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds paths from a source to a target node along the callees.
+ * <ul>
+ * <li>{@link #getShortestPath(int, int)} finds a path with the fewest edges by a bidirectional breadth-first search.
+ * </li>
+ * <li>{@link #getShortestPaths(int, int, int)} finds up to k loopless paths with Yen's algorithm. An edge costs the
+ * reciprocal of its weight, so paths over edges with many references are preferred.</li>
+ * </ul>
+ */
+public class PathAnalyzer {
+
+    private static final int[] NO_PATH = new int[0];
+
+    private final LCOMGraph<?> graph;
+
+    public PathAnalyzer(LCOMGraph<?> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the ids of a shortest path from {@code source} to {@code target}, both included. Returns an empty array
+     * if {@code target} is not reachable.
+     */
+    public int[] getShortestPath(int source, int target) {
+        if (source == target) {
+            return new int[]{source};
+        }
+        Search forward = new Search(source, this.graph.size());
+        Search backward = new Search(target, this.graph.size());
+        while (!forward.isExhausted() && !backward.isExhausted()) {
+            int meeting;
+            if (forward.frontierSize() <= backward.frontierSize()) {
+                meeting = forward.expandLevel(this.graph.calleeOffsets, this.graph.callees, backward);
+            } else {
+                meeting = backward.expandLevel(this.graph.callerOffsets, this.graph.callers, forward);
+            }
+            if (meeting >= 0) {
+                return joinPath(forward, backward, meeting);
+            }
+        }
+        return NO_PATH;
+    }
+
+    private static int[] joinPath(Search forward, Search backward, int meeting) {
+        int[] result = new int[forward.depth[meeting] + backward.depth[meeting] + 1];
+        int index = forward.depth[meeting];
+        for (int id = meeting; id >= 0; id = forward.parent[id]) {
+            result[index--] = id;
+        }
+        index = forward.depth[meeting];
+        for (int id = meeting; id >= 0; id = backward.parent[id]) {
+            result[index++] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to {@code k} loopless paths from {@code source} to {@code target} ordered by ascending cost. Each
+     * path contains the ids of its nodes, {@code source} and {@code target} included.
+     */
+    public List<int[]> getShortestPaths(int source, int target, int k) {
+        Path first = findCheapestPath(source, target, new BitSet(), Collections.emptySet());
+        if (first == null || k < 1) {
+            return Collections.emptyList();
+        }
+        List<Path> result = new ArrayList<>();
+        result.add(first);
+        PriorityQueue<Path> candidates = new PriorityQueue<>((a, b) -> Double.compare(a.cost, b.cost));
+        Set<Path> known = new HashSet<>(result);
+
+        while (result.size() < k) {
+            int[] previous = result.get(result.size() - 1).nodes;
+            for (int i = 0; i < previous.length - 1; i++) {
+                int spur = previous[i];
+                Set<Long> blockedEdges = new HashSet<>();
+                for (Path path : result) {
+                    if (path.nodes.length > i + 1 && startsWith(path.nodes, previous, i + 1)) {
+                        blockedEdges.add(edgeKey(path.nodes[i], path.nodes[i + 1]));
+                    }
+                }
+                BitSet blockedNodes = new BitSet(this.graph.size());
+                double rootCost = 0;
+                for (int j = 0; j < i; j++) {
+                    blockedNodes.set(previous[j]);
+                    rootCost += cost(previous[j], previous[j + 1]);
+                }
+
+                Path spurPath = findCheapestPath(spur, target, blockedNodes, blockedEdges);
+                if (spurPath != null) {
+                    int[] nodes = new int[i + spurPath.nodes.length];
+                    System.arraycopy(previous, 0, nodes, 0, i);
+                    System.arraycopy(spurPath.nodes, 0, nodes, i, spurPath.nodes.length);
+                    Path candidate = new Path(nodes, rootCost + spurPath.cost);
+                    if (known.add(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            result.add(candidates.poll());
+        }
+
+        List<int[]> paths = new ArrayList<>(result.size());
+        for (Path path : result) {
+            paths.add(path.nodes);
+        }
+        return paths;
+    }
+
+    private static boolean startsWith(int[] path, int[] prefix, int length) {
+        for (int i = 0; i < length; i++) {
+            if (path[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long edgeKey(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    private double cost(int source, int target) {
+        double result = Double.POSITIVE_INFINITY;
+        for (int i = this.graph.calleeOffsets[source]; i < this.graph.calleeOffsets[source + 1]; i++) {
+            if (this.graph.callees[i] == target) {
+                result = Math.min(result, edgeCost(i));
+            }
+        }
+        return result;
+    }
+
+    private double edgeCost(int edge) {
+        return 1.0 / Math.max(1, this.graph.calleeWeights[edge]);
+    }
+
+    /**
+     * Dijkstra's algorithm, avoiding {@code blockedNodes} and {@code blockedEdges}.
+     */
+    private Path findCheapestPath(int source, int target, BitSet blockedNodes, Set<Long> blockedEdges) {
+        int size = this.graph.size();
+        double[] distance = new double[size];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        int[] parent = new int[size];
+        Arrays.fill(parent, -1);
+        BitSet settled = new BitSet(size);
+        Heap heap = new Heap();
+        distance[source] = 0;
+        heap.push(0, source);
+
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (settled.get(node)) {
+                continue;
+            }
+            settled.set(node);
+            if (node == target) {
+                break;
+            }
+            for (int i = this.graph.calleeOffsets[node]; i < this.graph.calleeOffsets[node + 1]; i++) {
+                int callee = this.graph.callees[i];
+                if (settled.get(callee) || blockedNodes.get(callee)
+                        || (!blockedEdges.isEmpty() && blockedEdges.contains(edgeKey(node, callee)))) {
+                    continue;
+                }
+                double candidate = distance[node] + edgeCost(i);
+                if (candidate < distance[callee]) {
+                    distance[callee] = candidate;
+                    parent[callee] = node;
+                    heap.push(candidate, callee);
+                }
+            }
+        }
+
+        if (!settled.get(target)) {
+            return null;
+        }
+        int length = 1;
+        for (int id = target; id != source; id = parent[id]) {
+            length += 1;
+        }
+        int[] nodes = new int[length];
+        for (int id = target, index = length - 1; index >= 0; id = parent[id], index--) {
+            nodes[index] = id;
+        }
+        return new Path(nodes, distance[target]);
+    }
+
+    /**
+     * Level by level breadth-first search from one end of a path.
+     */
+    private static class Search {
+
+        private final int[] depth;
+        private final int[] parent;
+        private final int[] queue;
+        private int head = 0;
+        private int tail = 0;
+
+        Search(int start, int size) {
+            this.depth = new int[size];
+            this.parent = new int[size];
+            this.queue = new int[size];
+            Arrays.fill(this.depth, -1);
+            this.depth[start] = 0;
+            this.parent[start] = -1;
+            this.queue[this.tail++] = start;
+        }
+
+        boolean isExhausted() {
+            return this.head == this.tail;
+        }
+
+        int frontierSize() {
+            return this.tail - this.head;
+        }
+
+        /**
+         * Visits all nodes of the next level. Returns the node where this search meets {@code other} on a shortest
+         * path, or {@code -1}.
+         */
+        int expandLevel(int[] offsets, int[] neighbours, Search other) {
+            int meeting = -1;
+            int levelEnd = this.tail;
+            while (this.head < levelEnd) {
+                int node = this.queue[this.head++];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    int neighbour = neighbours[i];
+                    if (this.depth[neighbour] >= 0) {
+                        continue;
+                    }
+                    this.depth[neighbour] = this.depth[node] + 1;
+                    this.parent[neighbour] = node;
+                    this.queue[this.tail++] = neighbour;
+                    if (other.depth[neighbour] >= 0
+                            && (meeting < 0 || other.depth[neighbour] < other.depth[meeting])) {
+                        meeting = neighbour;
+                    }
+                }
+            }
+            return meeting;
+        }
+
+    }
+
+    private static class Path {
+
+        private final int[] nodes;
+        private final double cost;
+
+        Path(int[] nodes, double cost) {
+            this.nodes = nodes;
+            this.cost = cost;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return Arrays.equals(this.nodes, ((Path) o).nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.nodes);
+        }
+
+    }
+
+    /**
+     * Binary min heap of nodes by distance. Nodes are pushed again instead of decreasing their key.
+     */
+    private static class Heap {
+
+        private double[] keys = new double[16];
+        private int[] nodes = new int[16];
+        private int size = 0;
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void push(double key, int node) {
+            if (this.size == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, this.size * 2);
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+            }
+            int index = this.size++;
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (this.keys[parent] <= key) {
+                    break;
+                }
+                this.keys[index] = this.keys[parent];
+                this.nodes[index] = this.nodes[parent];
+                index = parent;
+            }
+            this.keys[index] = key;
+            this.nodes[index] = node;
+        }
+
+        int pop() {
+            int result = this.nodes[0];
+            this.size -= 1;
+            double key = this.keys[this.size];
+            int node = this.nodes[this.size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= this.size) {
+                    break;
+                }
+                if (child + 1 < this.size && this.keys[child + 1] < this.keys[child]) {
+                    child += 1;
+                }
+                if (this.keys[child] >= key) {
+                    break;
+                }
+                this.keys[index] = this.keys[child];
+                this.nodes[index] = this.nodes[child];
+                index = child;
+            }
+            this.keys[index] = key;
+            this.nodes[index] = node;
+            return result;
+        }
+
+    }
+
+}
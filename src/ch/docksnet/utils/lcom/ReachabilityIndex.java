@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import java.util.BitSet;
+
+/**
+ * Transitive closure of a graph, condensed over its strongly connected components. Descendants and ancestors are
+ * kept as one {@link BitSet} of components per component, so a query only unions the closures of the roots and
+ * expands the result to node ids.
+ * <p/>
+ * The closure needs two bits per pair of components. Graphs with more than {@link #MAX_COMPONENTS} components should
+ * be traversed with {@link CalleesSubgraphAnalyzer} and {@link CallersSubgraphAnalyzer} instead.
+ */
+public class ReachabilityIndex {
+
+    public static final int MAX_COMPONENTS = 8192;
+
+    private final LCOMGraph<?> graph;
+    private final StronglyConnectedComponents components;
+    private final BitSet[] descendants;
+    private final BitSet[] ancestors;
+
+    public ReachabilityIndex(LCOMGraph<?> graph, StronglyConnectedComponents components) {
+        this.graph = graph;
+        this.components = components;
+        int count = components.getComponentCount();
+        this.descendants = new BitSet[count];
+        this.ancestors = new BitSet[count];
+        initDescendants();
+        initAncestors();
+    }
+
+    public static boolean isApplicable(StronglyConnectedComponents components) {
+        return components.getComponentCount() <= MAX_COMPONENTS;
+    }
+
+    private void initDescendants() {
+        int count = this.components.getComponentCount();
+        for (int component = 0; component < count; component++) {
+            BitSet closure = new BitSet(count);
+            closure.set(component);
+            for (int m = this.components.memberOffsets[component]; m < this.components.memberOffsets[component + 1];
+                 m++) {
+                int member = this.components.members[m];
+                for (int i = this.graph.calleeOffsets[member]; i < this.graph.calleeOffsets[member + 1]; i++) {
+                    int callee = this.components.getComponentOf(this.graph.callees[i]);
+                    if (!closure.get(callee)) {
+                        closure.or(this.descendants[callee]);
+                    }
+                }
+            }
+            this.descendants[component] = closure;
+        }
+    }
+
+    private void initAncestors() {
+        int count = this.components.getComponentCount();
+        for (int component = count - 1; component >= 0; component--) {
+            BitSet closure = new BitSet(count);
+            closure.set(component);
+            for (int m = this.components.memberOffsets[component]; m < this.components.memberOffsets[component + 1];
+                 m++) {
+                int member = this.components.members[m];
+                for (int i = this.graph.callerOffsets[member]; i < this.graph.callerOffsets[member + 1]; i++) {
+                    int caller = this.components.getComponentOf(this.graph.callers[i]);
+                    if (!closure.get(caller)) {
+                        closure.or(this.ancestors[caller]);
+                    }
+                }
+            }
+            this.ancestors[component] = closure;
+        }
+    }
+
+    /**
+     * Returns the ids of {@code roots} and all their transitive callees.
+     */
+    public BitSet getDescendants(int... roots) {
+        return toNodes(union(this.descendants, roots));
+    }
+
+    /**
+     * Returns the ids of {@code roots} and all their transitive callers.
+     */
+    public BitSet getAncestors(int... roots) {
+        return toNodes(union(this.ancestors, roots));
+    }
+
+    private BitSet union(BitSet[] closures, int[] roots) {
+        BitSet result = new BitSet(this.components.getComponentCount());
+        for (int root : roots) {
+            result.or(closures[this.components.getComponentOf(root)]);
+        }
+        return result;
+    }
+
+    private BitSet toNodes(BitSet componentSet) {
+        BitSet result = new BitSet(this.graph.size());
+        for (int component = componentSet.nextSetBit(0); component >= 0;
+             component = componentSet.nextSetBit(component + 1)) {
+            for (int m = this.components.memberOffsets[component]; m < this.components.memberOffsets[component + 1];
+                 m++) {
+                result.set(this.components.members[m]);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Strongly connected components of a graph, found by an iterative variant of Tarjan's algorithm. Components are
+ * numbered in reverse topological order: every edge between two different components leads from a higher to a lower
+ * component id.
+ */
+public class StronglyConnectedComponents {
+
+    private final int[] componentOf;
+    private final int componentCount;
+    private final BitSet cycles;
+
+    final int[] memberOffsets;
+    final int[] members;
+
+    public StronglyConnectedComponents(LCOMGraph<?> graph) {
+        int size = graph.size();
+        this.componentOf = new int[size];
+
+        int[] index = new int[size];
+        Arrays.fill(index, -1);
+        int[] lowlink = new int[size];
+        int[] edgePosition = new int[size];
+        BitSet onStack = new BitSet(size);
+        IntStack callStack = new IntStack(size);
+        IntStack componentStack = new IntStack(size);
+        int counter = 0;
+        int components = 0;
+
+        for (int start = 0; start < size; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            index[start] = lowlink[start] = counter++;
+            edgePosition[start] = graph.calleeOffsets[start];
+            onStack.set(start);
+            componentStack.push(start);
+            callStack.push(start);
+
+            while (!callStack.isEmpty()) {
+                int node = callStack.peek();
+                if (edgePosition[node] < graph.calleeOffsets[node + 1]) {
+                    int callee = graph.callees[edgePosition[node]++];
+                    if (index[callee] < 0) {
+                        index[callee] = lowlink[callee] = counter++;
+                        edgePosition[callee] = graph.calleeOffsets[callee];
+                        onStack.set(callee);
+                        componentStack.push(callee);
+                        callStack.push(callee);
+                    } else if (onStack.get(callee)) {
+                        lowlink[node] = Math.min(lowlink[node], index[callee]);
+                    }
+                } else {
+                    callStack.pop();
+                    if (lowlink[node] == index[node]) {
+                        int member;
+                        do {
+                            member = componentStack.pop();
+                            onStack.clear(member);
+                            this.componentOf[member] = components;
+                        } while (member != node);
+                        components += 1;
+                    }
+                    if (!callStack.isEmpty()) {
+                        int caller = callStack.peek();
+                        lowlink[caller] = Math.min(lowlink[caller], lowlink[node]);
+                    }
+                }
+            }
+        }
+        this.componentCount = components;
+        this.cycles = new BitSet(components);
+
+        this.memberOffsets = new int[components + 1];
+        for (int id = 0; id < size; id++) {
+            this.memberOffsets[this.componentOf[id] + 1] += 1;
+        }
+        for (int component = 0; component < components; component++) {
+            this.memberOffsets[component + 1] += this.memberOffsets[component];
+        }
+        this.members = new int[size];
+        int[] fill = Arrays.copyOf(this.memberOffsets, components);
+        for (int id = 0; id < size; id++) {
+            this.members[fill[this.componentOf[id]]++] = id;
+        }
+
+        for (int component = 0; component < components; component++) {
+            if (getComponentSize(component) > 1) {
+                this.cycles.set(component);
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            for (int i = graph.calleeOffsets[id]; i < graph.calleeOffsets[id + 1]; i++) {
+                if (graph.callees[i] == id) {
+                    this.cycles.set(this.componentOf[id]);
+                }
+            }
+        }
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    public int getComponentOf(int id) {
+        return this.componentOf[id];
+    }
+
+    public int getComponentSize(int component) {
+        return this.memberOffsets[component + 1] - this.memberOffsets[component];
+    }
+
+    /**
+     * Returns the number of components which contain a cycle, i.e. which have more than one member or a node
+     * referencing itself.
+     */
+    public int getCycleCount() {
+        return this.cycles.cardinality();
+    }
+
+    /**
+     * Returns the ids of all nodes which are part of a cycle.
+     */
+    public BitSet getNodesInCycles() {
+        BitSet result = new BitSet(this.componentOf.length);
+        for (int component = this.cycles.nextSetBit(0); component >= 0;
+             component = this.cycles.nextSetBit(component + 1)) {
+            for (int m = this.memberOffsets[component]; m < this.memberOffsets[component + 1]; m++) {
+                result.set(this.members[m]);
+            }
+        }
+        return result;
+    }
+
+}
@@ -17,6 +17,7 @@
 package ch.docksnet.rgraph;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import ch.docksnet.rgraph.fqn.MethodFQN;
 import org.junit.Test;
@@ -37,6 +38,16 @@ public class MethodFQNTest {
         assertEquals(Arrays.asList("int", "String", "int"), result.getParameters());
     }
 
+    @Test
+    public void create_from_string_without_parameters() throws Exception {
+        MethodFQN result = MethodFQN.create("a.B#m()");
+
+        assertEquals("a.B", result.getClassName());
+        assertEquals("m", result.getMethodName());
+        assertEquals(Collections.emptyList(), result.getParameters());
+        assertEquals("a.B#m()", result.getFQN());
+    }
+
     @Test
     public void create_and_get_fqn() throws Exception {
         MethodFQN sut = new MethodFQN.Builder("ch.docksnet.app.MainClass", "method1")
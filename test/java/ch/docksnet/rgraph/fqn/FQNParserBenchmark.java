@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.fqn;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static ch.docksnet.utils.Benchmarks.measure;
+
+/**
+ * Compares the {@link FQNParser} with the former parsing by regular expressions and splits. Run
+ * {@link #main(String[])} with an optional number of FQNs.
+ */
+public class FQNParserBenchmark {
+
+    private static final Pattern METHOD_PATTERN = Pattern.compile("(.*)#(.*)\\((.*)\\)");
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String[] fqns = createFqns(size);
+
+        measure("regex", () -> {
+            for (String fqn : fqns) {
+                sink += parseByRegex(fqn);
+            }
+        });
+        measure("FQNParser", () -> {
+            for (String fqn : fqns) {
+                sink += parse(fqn);
+            }
+        });
+        System.out.println("checksum: " + sink);
+    }
+
+    private static String[] createFqns(int size) {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            String className = "ch.docksnet.app.sub" + (i % 10) + ".MainClass" + (i % 100);
+            switch (i % 4) {
+                case 0:
+                    result[i] = className + "#method" + i + "(int,String,java.util.List<String>)";
+                    break;
+                case 1:
+                    result[i] = className + "#field" + i;
+                    break;
+                case 2:
+                    result[i] = className;
+                    break;
+                default:
+                    result[i] = "ch.docksnet.app.sub" + i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The checks and parts of the resolution as they were done before.
+     */
+    private static int parseByRegex(String fqn) {
+        Matcher matcher = METHOD_PATTERN.matcher(fqn);
+        if (matcher.find()) {
+            matcher = METHOD_PATTERN.matcher(fqn);
+            matcher.find();
+            List<String> parameters = Arrays.asList(matcher.group(3).split(","));
+            return matcher.group(1).length() + matcher.group(2).length() + parameters.size();
+        }
+        if (fqn.contains("#") && !fqn.contains("(")) {
+            matcher = Pattern.compile("(.*)#(.*)").matcher(fqn);
+            matcher.find();
+            return matcher.group(1).length() + matcher.group(2).length();
+        }
+        String[] split = fqn.split("\\.");
+        if (Character.isUpperCase(split[split.length - 1].charAt(0))) {
+            return 1;
+        }
+        split = fqn.split("\\.");
+        if (Character.isLowerCase(split[split.length - 1].charAt(0))) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static int parse(String fqn) {
+        FQNParser parser = FQNParser.parse(fqn);
+        switch (parser.getKind()) {
+            case METHOD:
+                return parser.getClassName().length() + parser.getMemberName().length()
+                        + parser.getParameters().size();
+            case FIELD:
+                return parser.getClassName().length() + parser.getMemberName().length();
+            case CLASS:
+                return 1;
+            case PACKAGE:
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.fqn;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class FQNParserTest {
+
+    @Test
+    public void parse_method() {
+        FQNParser sut = FQNParser.parse("ch.docksnet.app.MainClass#method1(int,String,int)");
+
+        assertEquals(FQNParser.Kind.METHOD, sut.getKind());
+        assertEquals("ch.docksnet.app.MainClass", sut.getClassName());
+        assertEquals("method1", sut.getMemberName());
+        assertEquals("int,String,int", sut.getParameterString());
+        assertEquals(Arrays.asList("int", "String", "int"), sut.getParameters());
+    }
+
+    @Test
+    public void parse_method_without_parameters() {
+        FQNParser sut = FQNParser.parse("ch.docksnet.app.MainClass#method1()");
+
+        assertEquals(FQNParser.Kind.METHOD, sut.getKind());
+        assertEquals("method1", sut.getMemberName());
+        assertEquals("", sut.getParameterString());
+        assertEquals(Collections.emptyList(), sut.getParameters());
+    }
+
+    @Test
+    public void parse_field() {
+        FQNParser sut = FQNParser.parse("ch.docksnet.app.MainClass#field1");
+
+        assertEquals(FQNParser.Kind.FIELD, sut.getKind());
+        assertEquals("ch.docksnet.app.MainClass", sut.getClassName());
+        assertEquals("field1", sut.getMemberName());
+    }
+
+    @Test
+    public void parse_class_and_package() {
+        assertEquals(FQNParser.Kind.CLASS, FQNParser.parse("ch.docksnet.app.MainClass").getKind());
+        assertEquals(FQNParser.Kind.CLASS, FQNParser.parse("MainClass").getKind());
+        assertEquals(FQNParser.Kind.PACKAGE, FQNParser.parse("ch.docksnet.app").getKind());
+        assertEquals(FQNParser.Kind.UNKNOWN, FQNParser.parse("[init]").getKind());
+    }
+
+    @Test
+    public void parse_uses_last_hash_and_brackets() {
+        FQNParser sut = FQNParser.parse("a.B#m(java.util.List<a.C>,int...)");
+
+        assertEquals(FQNParser.Kind.METHOD, sut.getKind());
+        assertEquals("a.B", sut.getClassName());
+        assertEquals(Arrays.asList("java.util.List<a.C>", "int..."), sut.getParameters());
+    }
+
+    @Test
+    public void parse_uses_hash_before_parameters_when_a_parameter_contains_a_hash() {
+        FQNParser sut = FQNParser.parse("a.B#m(a.C#D,int)");
+
+        assertEquals(FQNParser.Kind.METHOD, sut.getKind());
+        assertEquals("a.B", sut.getClassName());
+        assertEquals("m", sut.getMemberName());
+        assertEquals(Arrays.asList("a.C#D", "int"), sut.getParameters());
+    }
+
+    @Test
+    public void parse_uses_last_hash_of_field() {
+        FQNParser sut = FQNParser.parse("a.B#C#field");
+
+        assertEquals(FQNParser.Kind.FIELD, sut.getKind());
+        assertEquals("a.B#C", sut.getClassName());
+        assertEquals("field", sut.getMemberName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void members_of_class_are_rejected() {
+        FQNParser.parse("ch.docksnet.app.MainClass").getMemberName();
+    }
+
+}
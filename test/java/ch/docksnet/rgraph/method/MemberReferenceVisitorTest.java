@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.rgraph.method;
+
+import ch.docksnet.rgraph.RootMemberResolver;
+import ch.docksnet.utils.IncrementableSet;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Both resolution modes have to count the same references, otherwise the diagram depends on the selected mode.
+ */
+public class MemberReferenceVisitorTest extends LightJavaCodeInsightFixtureTestCase {
+
+    private static final String SOURCE = "" +
+            "public class A {\n" +
+            "    private int field = init();\n" +
+            "    static { helper(); }\n" +
+            "    /** Calls {@link #helper()} and {@link A#overloaded(int)}, see also {@link #field}. */\n" +
+            "    public A() { overloaded(field); }\n" +
+            "    /** @see #overloaded(String) */\n" +
+            "    private int init() { return field + overloaded(\"a\"); }\n" +
+            "    private static void helper() { }\n" +
+            "    private int overloaded(int value) { return overloaded(String.valueOf(value)); }\n" +
+            "    private int overloaded(String value) { new Inner(); return new A().field; }\n" +
+            "    /** Uses {@link A#helper}. */\n" +
+            "    class Inner { Inner() { helper(); init(); } }\n" +
+            "}\n";
+
+    public void test_single_pass_counts_like_search() {
+        PsiClass psiClass = ((PsiJavaFile) myFixture.configureByText("A.java", SOURCE)).getClasses()[0];
+        List<PsiElement> members = getMembers(psiClass);
+
+        IncrementableSet<SourceTargetPair> singlePass = new IncrementableSet<>();
+        psiClass.accept(new MemberReferenceVisitor(psiClass, members, singlePass));
+
+        IncrementableSet<SourceTargetPair> search = new IncrementableSet<>();
+        RootMemberResolver rootMemberResolver = new RootMemberResolver(psiClass);
+        for (PsiElement callee : members) {
+            MethodReferenceDiagramDataModel.searchReferences(rootMemberResolver, callee,
+                    new LocalSearchScope(psiClass), search::increment);
+        }
+
+        assertEquals(toCounts(search), toCounts(singlePass));
+    }
+
+    public void test_single_pass_skips_javadoc_member_references() {
+        PsiClass psiClass = ((PsiJavaFile) myFixture.configureByText("A.java", SOURCE)).getClasses()[0];
+        List<PsiElement> members = getMembers(psiClass);
+
+        IncrementableSet<SourceTargetPair> singlePass = new IncrementableSet<>();
+        psiClass.accept(new MemberReferenceVisitor(psiClass, members, singlePass));
+
+        PsiElement constructor = psiClass.getConstructors()[0];
+        PsiElement helper = psiClass.findMethodsByName("helper", false)[0];
+        assertEquals(0, singlePass.get(new SourceTargetPair(constructor, helper)));
+    }
+
+    private static List<PsiElement> getMembers(PsiClass psiClass) {
+        List<PsiElement> members = new ArrayList<>();
+        members.addAll(Arrays.asList(psiClass.getMethods()));
+        members.addAll(Arrays.asList(psiClass.getFields()));
+        members.addAll(Arrays.asList(psiClass.getInitializers()));
+        members.addAll(Arrays.asList(psiClass.getInnerClasses()));
+        return members;
+    }
+
+    private static Map<String, Long> toCounts(IncrementableSet<SourceTargetPair> relationships) {
+        Map<String, Long> result = new HashMap<>();
+        relationships.forEach((pair, count) -> result.put(describe(pair.getSource()) + " -> " + describe(pair.getTarget()), count));
+        return result;
+    }
+
+    private static String describe(PsiElement element) {
+        // overloads have the same name, the offset tells them apart
+        return element + "@" + element.getTextOffset();
+    }
+
+}
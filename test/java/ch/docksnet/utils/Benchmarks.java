@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+/**
+ * Runs the main() based benchmarks next to the tests: every task is warmed up and then timed over a fixed number of
+ * rounds.
+ */
+public class Benchmarks {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Prints the average time of a round of {@code runnable} in microseconds.
+     */
+    public static void measure(String name, Runnable runnable) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runnable.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            runnable.run();
+        }
+        long averageMicros = (System.nanoTime() - start) / MEASURED_ROUNDS / 1000;
+        System.out.println(name + ": " + averageMicros + " us");
+    }
+
+}
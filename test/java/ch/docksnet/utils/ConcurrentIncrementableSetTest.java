@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrentIncrementableSetTest {
+
+    private ConcurrentIncrementableSet<String> sut;
+
+    @Before
+    public void setUp() throws Exception {
+        sut = new ConcurrentIncrementableSet<>();
+    }
+
+    @Test
+    public void get_zero_when_element_has_not_been_added() throws Exception {
+        assertEquals(0, sut.get("test"));
+    }
+
+    @Test
+    public void counts_increments_of_several_threads() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    sut.increment("a");
+                    sut.increment("b" + (j % 2));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        IncrementableSet<String> result = sut.toIncrementableSet();
+
+        assertEquals(8000, result.get("a"));
+        assertEquals(4000, result.get("b0"));
+        assertEquals(4000, result.get("b1"));
+    }
+
+}
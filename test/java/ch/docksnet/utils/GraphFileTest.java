@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GraphFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+    private GraphFile sut;
+
+    @Before
+    public void setUp() throws Exception {
+        path = folder.getRoot().toPath().resolve(GraphFile.getFileName("key"));
+        sut = new GraphFile(Arrays.asList("a.B#m()", "a.B#n()", "a.B#f"));
+        sut.addEdge(0, 1, 2);
+        sut.addEdge(1, 2, 1);
+        sut.addDependency(new GraphFile.Dependency("file:///a/B.java", 10, 20, 30));
+    }
+
+    @Test
+    public void read_returns_written_graph() throws Exception {
+        sut.write(path, "key");
+
+        GraphFile result = GraphFile.read(path, "key", dependency -> true);
+
+        assertNotNull(result);
+        assertEquals(sut.getIds(), result.getIds());
+        assertEquals(2, result.getEdgeCount());
+        assertEquals(0, result.getSource(0));
+        assertEquals(1, result.getTarget(0));
+        assertEquals(2, result.getCount(0));
+        assertEquals(1, result.getDependencies().size());
+        assertEquals("file:///a/B.java", result.getDependencies().get(0).getPath());
+        assertEquals(30, result.getDependencies().get(0).getHash());
+    }
+
+    @Test
+    public void read_returns_null_for_other_key() throws Exception {
+        sut.write(path, "key");
+
+        assertNull(GraphFile.read(path, "other", dependency -> true));
+    }
+
+    @Test
+    public void read_returns_null_when_dependency_changed() throws Exception {
+        sut.write(path, "key");
+
+        assertNull(GraphFile.read(path, "key", dependency -> false));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_fails_on_truncated_file() throws Exception {
+        sut.write(path, "key");
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 4);
+        }
+
+        GraphFile.read(path, "key", dependency -> true);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_fails_on_trailing_data() throws Exception {
+        sut.write(path, "key");
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length());
+            file.writeByte(1);
+        }
+
+        GraphFile.read(path, "key", dependency -> true);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_fails_on_invalid_edge_index() throws Exception {
+        sut.addEdge(0, 3, 1);
+        sut.write(path, "key");
+
+        GraphFile.read(path, "key", dependency -> true);
+    }
+
+    @Test
+    public void evict_keeps_most_recently_used_files() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Path old = directory.resolve(GraphFile.getFileName("old"));
+        Path used = directory.resolve(GraphFile.getFileName("used"));
+        Path recent = directory.resolve(GraphFile.getFileName("recent"));
+        sut.write(old, "old");
+        sut.write(used, "used");
+        sut.write(recent, "recent");
+        Files.setLastModifiedTime(old, FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(used, FileTime.fromMillis(2000));
+        Files.setLastModifiedTime(recent, FileTime.fromMillis(3000));
+        GraphFile.touch(used);
+
+        int deleted = GraphFile.evict(directory, 2, Long.MAX_VALUE);
+
+        assertEquals(1, deleted);
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(used));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    public void evict_respects_byte_limit() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Path old = directory.resolve(GraphFile.getFileName("old"));
+        Path recent = directory.resolve(GraphFile.getFileName("recent"));
+        sut.write(old, "old");
+        sut.write(recent, "recent");
+        Files.setLastModifiedTime(old, FileTime.fromMillis(1000));
+
+        GraphFile.evict(directory, 10, Files.size(recent));
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+    }
+}
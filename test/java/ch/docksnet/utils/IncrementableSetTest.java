@@ -19,6 +19,9 @@ package ch.docksnet.utils;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -52,4 +55,43 @@ public class IncrementableSetTest {
         assertEquals(1, result);
     }
 
+    @Test
+    public void get_sum_of_increments() throws Exception {
+        sut.increment("test");
+        sut.increment("test", 5);
+        sut.increment("other");
+
+        assertEquals(6, sut.get("test"));
+        assertEquals(1, sut.get("other"));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    public void keeps_counts_when_growing() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j <= i % 3; j++) {
+                sut.increment("element" + i);
+            }
+        }
+
+        assertEquals(1000, sut.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 + 1, sut.get("element" + i));
+        }
+    }
+
+    @Test
+    public void for_each_visits_every_element_once() throws Exception {
+        sut.increment("a");
+        sut.increment("b");
+        sut.increment("b");
+        Map<String, Long> visited = new HashMap<>();
+
+        sut.forEach(visited::put);
+
+        assertEquals(2, visited.size());
+        assertEquals(Long.valueOf(1), visited.get("a"));
+        assertEquals(Long.valueOf(2), visited.get("b"));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class VersionedPoolTest {
+
+    @Test
+    public void reuses_values_of_same_key() {
+        VersionedPool<String, Object> sut = new VersionedPool<>();
+
+        Object first = sut.get("a", key -> new Object());
+        Object second = sut.get("a", key -> new Object());
+
+        assertSame(first, second);
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void prune_keeps_values_used_since_last_prune() {
+        VersionedPool<String, Object> sut = new VersionedPool<>();
+        Object a = sut.get("a", key -> new Object());
+        sut.get("b", key -> new Object());
+        sut.prune();
+
+        sut.get("a", key -> new Object());
+        int removed = sut.prune();
+
+        assertEquals(1, removed);
+        assertEquals(1, sut.size());
+        assertSame(a, sut.get("a", key -> new Object()));
+    }
+
+    @Test
+    public void pruned_keys_and_values_can_be_collected() throws InterruptedException {
+        VersionedPool<Object, Object> sut = new VersionedPool<>();
+        Object key = new Object();
+        WeakReference<Object> keyReference = new WeakReference<>(key);
+        WeakReference<Object> valueReference = new WeakReference<>(sut.get(key, it -> new Object()));
+        sut.prune();
+
+        // the key is not used by the next version any more
+        key = null;
+        sut.prune();
+
+        for (int i = 0; i < 50 && (keyReference.get() != null || valueReference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(keyReference.get());
+        assertNull(valueReference.get());
+        assertEquals(0, sut.size());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClusterCounterTest {
+
+    @Test
+    public void count_cluster_of_graph() throws Exception {
+        ClusterCounter sut = new ClusterCounter(LCOMGraphs.create(6, new int[][]{{0, 1}, {1, 2}, {3, 2}, {3, 4}}));
+
+        assertEquals(2, sut.getClusterCount());
+    }
+
+    @Test
+    public void removing_bridge_splits_cluster() throws Exception {
+        ClusterCounter sut = new ClusterCounter(LCOMGraphs.create(5, new int[][]{{0, 1}, {1, 2}, {2, 3}, {3, 4}}));
+
+        sut.removeAll(2);
+
+        assertEquals(2, sut.getClusterCount());
+    }
+
+    @Test
+    public void removing_single_node_removes_cluster() throws Exception {
+        ClusterCounter sut = new ClusterCounter(LCOMGraphs.create(3, new int[][]{{0, 1}}));
+
+        sut.removeAll(2);
+
+        assertEquals(1, sut.getClusterCount());
+    }
+
+    @Test
+    public void removing_node_twice_is_ignored() throws Exception {
+        ClusterCounter sut = new ClusterCounter(LCOMGraphs.create(3, new int[][]{{0, 1}, {1, 2}}));
+
+        sut.removeAll(1);
+        sut.removeAll(1);
+
+        assertEquals(2, sut.getClusterCount());
+    }
+
+    @Test
+    public void matches_cluster_analyzer_after_random_removals() throws Exception {
+        Random random = new Random(42);
+        int size = 300;
+        int[][] edges = new int[400][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(size), random.nextInt(size)};
+        }
+        ClusterCounter sut = new ClusterCounter(LCOMGraphs.create(size, edges));
+        boolean[] removed = new boolean[size];
+
+        for (int round = 0; round < 20; round++) {
+            int[] ids = new int[1 + random.nextInt(10)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = random.nextInt(size);
+                removed[ids[i]] = true;
+            }
+            sut.removeAll(ids);
+
+            assertEquals(countClusterOfRemaining(size, edges, removed), sut.getClusterCount());
+        }
+    }
+
+    private static long countClusterOfRemaining(int size, int[][] edges, boolean[] removed) {
+        LCOMGraph.Builder<Integer> builder = new LCOMGraph.Builder<>();
+        for (int id = 0; id < size; id++) {
+            if (!removed[id]) {
+                builder.addNode(id, LCOMNode.Type.Method);
+            }
+        }
+        for (int[] edge : edges) {
+            if (!removed[edge[0]] && !removed[edge[1]]) {
+                builder.addEdge(builder.idOf(edge[0]), builder.idOf(edge[1]));
+            }
+        }
+        return new ClusterAnalyzer(builder.build()).countCluster();
+    }
+
+}
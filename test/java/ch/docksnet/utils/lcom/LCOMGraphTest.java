@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LCOMGraphTest {
+
+    private LCOMGraph<String> sut;
+
+    @Before
+    public void setUp() throws Exception {
+        LCOMGraph.Builder<String> builder = new LCOMGraph.Builder<>();
+        int a = builder.addNode("a", LCOMNode.Type.Method);
+        int b = builder.addNode("b", LCOMNode.Type.Method);
+        int c = builder.addNode("c", LCOMNode.Type.Field);
+        int d = builder.addNode("d", LCOMNode.Type.Method);
+        int e = builder.addNode("e", LCOMNode.Type.Field);
+        builder.addNode("f", LCOMNode.Type.Constant);
+        builder.addEdge(a, b);
+        builder.addEdge(b, c);
+        builder.addEdge(d, c);
+        builder.addEdge(d, e);
+        sut = builder.build();
+    }
+
+    @Test
+    public void keeps_ids_of_nodes() throws Exception {
+        assertEquals(6, sut.size());
+        assertEquals(4, sut.edgeCount());
+        assertEquals("c", sut.getElement(sut.idOf("c")));
+        assertEquals(LCOMNode.Type.Field, sut.getType(sut.idOf("c")));
+        assertEquals(-1, sut.idOf("unknown"));
+    }
+
+    @Test
+    public void add_same_node_twice_keeps_id() throws Exception {
+        LCOMGraph.Builder<String> builder = new LCOMGraph.Builder<>();
+        int first = builder.addNode("a", LCOMNode.Type.Method);
+
+        int second = builder.addNode("a", LCOMNode.Type.Method);
+
+        assertEquals(first, second);
+        assertEquals(1, builder.build().size());
+    }
+
+    @Test
+    public void count_cluster() throws Exception {
+        long result = new ClusterAnalyzer(sut).countCluster();
+
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void get_callees_transitive() throws Exception {
+        BitSet result = new CalleesSubgraphAnalyzer(sut).getCallees(sut.idOf("a"));
+
+        assertEquals(3, result.cardinality());
+        assertTrue(result.get(sut.idOf("a")));
+        assertTrue(result.get(sut.idOf("b")));
+        assertTrue(result.get(sut.idOf("c")));
+    }
+
+    @Test
+    public void get_callers_transitive() throws Exception {
+        BitSet result = new CallersSubgraphAnalyzer(sut).getCallers(sut.idOf("c"));
+
+        assertEquals(4, result.cardinality());
+        assertTrue(result.get(sut.idOf("a")));
+        assertTrue(result.get(sut.idOf("b")));
+        assertTrue(result.get(sut.idOf("c")));
+        assertTrue(result.get(sut.idOf("d")));
+    }
+
+    @Test
+    public void traverse_long_chain_without_recursion() throws Exception {
+        LCOMGraph<Integer> chain = LCOMTraversalBenchmark.createChain(100_000);
+
+        assertEquals(1, new ClusterAnalyzer(chain).countCluster());
+        assertEquals(100_000, new CalleesSubgraphAnalyzer(chain).getCallees(0).cardinality());
+        assertEquals(100_000, new CallersSubgraphAnalyzer(chain).getCallers(99_999).cardinality());
+        assertEquals(1, new CalleesSubgraphAnalyzer(chain).getCallees(99_999).cardinality());
+    }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+/**
+ * Creates graphs with {@code Integer} elements, where each element equals its id.
+ */
+class LCOMGraphs {
+
+    static LCOMGraph<Integer> create(int size, int[][] edges) {
+        LCOMGraph.Builder<Integer> builder = new LCOMGraph.Builder<>();
+        for (int id = 0; id < size; id++) {
+            builder.addNode(id, LCOMNode.Type.Method);
+        }
+        for (int[] edge : edges) {
+            builder.addEdge(edge[0], edge[1]);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import static ch.docksnet.utils.Benchmarks.measure;
+
+/**
+ * Measures the traversal engines on a synthetic chain. Run {@link #main(String[])} with an optional node count.
+ */
+public class LCOMTraversalBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        LCOMGraph<Integer> graph = createChain(size);
+
+        measure("ClusterAnalyzer.countCluster", () -> new ClusterAnalyzer(graph).countCluster());
+        measure("CalleesSubgraphAnalyzer.getCallees", () -> new CalleesSubgraphAnalyzer(graph).getCallees(0));
+        measure("CallersSubgraphAnalyzer.getCallers", () -> new CallersSubgraphAnalyzer(graph)
+                .getCallers(size - 1));
+    }
+
+    static LCOMGraph<Integer> createChain(int size) {
+        LCOMGraph.Builder<Integer> builder = new LCOMGraph.Builder<>();
+        for (int i = 0; i < size; i++) {
+            builder.addNode(i, LCOMNode.Type.Method);
+        }
+        for (int i = 1; i < size; i++) {
+            builder.addEdge(i - 1, i);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PathAnalyzerTest {
+
+    @Test
+    public void get_shortest_path() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(6, new int[][]{{0, 1}, {1, 2}, {2, 3}, {0, 4}, {4, 3}, {3, 5}});
+
+        int[] result = new PathAnalyzer(graph).getShortestPath(0, 5);
+
+        assertArrayEquals(new int[]{0, 4, 3, 5}, result);
+    }
+
+    @Test
+    public void get_no_path_against_direction() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(3, new int[][]{{0, 1}, {1, 2}});
+
+        int[] result = new PathAnalyzer(graph).getShortestPath(2, 0);
+
+        assertEquals(0, result.length);
+    }
+
+    @Test
+    public void get_path_to_itself() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(2, new int[][]{{0, 1}});
+
+        assertArrayEquals(new int[]{1}, new PathAnalyzer(graph).getShortestPath(1, 1));
+    }
+
+    @Test
+    public void shortest_path_has_length_of_breadth_first_search() throws Exception {
+        Random random = new Random(3);
+        int size = 300;
+        int[][] edges = new int[600][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(size), random.nextInt(size)};
+        }
+        LCOMGraph<Integer> graph = LCOMGraphs.create(size, edges);
+        PathAnalyzer sut = new PathAnalyzer(graph);
+
+        for (int round = 0; round < 200; round++) {
+            int source = random.nextInt(size);
+            int target = random.nextInt(size);
+
+            int[] result = sut.getShortestPath(source, target);
+
+            assertEquals(distance(graph, source, target) + 1, result.length);
+            if (result.length > 0) {
+                assertEquals(source, result[0]);
+                assertEquals(target, result[result.length - 1]);
+                for (int i = 1; i < result.length; i++) {
+                    assertEquals(0, distance(graph, result[i - 1], result[i]) - 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void get_shortest_path_of_long_chain() throws Exception {
+        LCOMGraph<Integer> chain = LCOMTraversalBenchmark.createChain(100_000);
+
+        assertEquals(100_000, new PathAnalyzer(chain).getShortestPath(0, 99_999).length);
+    }
+
+    @Test
+    public void get_shortest_paths_by_weight() throws Exception {
+        LCOMGraph.Builder<Integer> builder = new LCOMGraph.Builder<>();
+        for (int id = 0; id < 5; id++) {
+            builder.addNode(id, LCOMNode.Type.Method);
+        }
+        builder.addEdge(0, 4, 1);
+        builder.addEdge(0, 1, 10);
+        builder.addEdge(1, 4, 10);
+        builder.addEdge(0, 2, 4);
+        builder.addEdge(2, 3, 4);
+        builder.addEdge(3, 4, 4);
+
+        List<int[]> result = new PathAnalyzer(builder.build()).getShortestPaths(0, 4, 5);
+
+        assertEquals(3, result.size());
+        assertArrayEquals(new int[]{0, 1, 4}, result.get(0));
+        assertArrayEquals(new int[]{0, 2, 3, 4}, result.get(1));
+        assertArrayEquals(new int[]{0, 4}, result.get(2));
+    }
+
+    @Test
+    public void get_no_shortest_paths_if_unreachable() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(3, new int[][]{{0, 1}});
+
+        assertEquals(0, new PathAnalyzer(graph).getShortestPaths(0, 2, 3).size());
+    }
+
+    private static int distance(LCOMGraph<Integer> graph, int source, int target) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = graph.calleeOffsets[node]; i < graph.calleeOffsets[node + 1]; i++) {
+                if (distance[graph.callees[i]] < 0) {
+                    distance[graph.callees[i]] = distance[node] + 1;
+                    queue.add(graph.callees[i]);
+                }
+            }
+        }
+        return distance[target];
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReachabilityIndexTest {
+
+    @Test
+    public void get_descendants_and_ancestors() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(6, new int[][]{{0, 1}, {1, 2}, {2, 1}, {2, 3}, {4, 3}});
+        ReachabilityIndex sut = new ReachabilityIndex(graph, new StronglyConnectedComponents(graph));
+
+        assertEquals(bits(1, 2, 3), sut.getDescendants(1));
+        assertEquals(bits(0, 1, 2, 4), sut.getAncestors(2, 4));
+        assertEquals(bits(5), sut.getDescendants(5));
+    }
+
+    @Test
+    public void matches_subgraph_analyzers() throws Exception {
+        Random random = new Random(7);
+        int size = 200;
+        int[][] edges = new int[300][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[]{random.nextInt(size), random.nextInt(size)};
+        }
+        LCOMGraph<Integer> graph = LCOMGraphs.create(size, edges);
+
+        ReachabilityIndex sut = new ReachabilityIndex(graph, new StronglyConnectedComponents(graph));
+
+        for (int id = 0; id < size; id++) {
+            assertEquals(new CalleesSubgraphAnalyzer(graph).getCallees(id), sut.getDescendants(id));
+            assertEquals(new CallersSubgraphAnalyzer(graph).getCallers(id), sut.getAncestors(id));
+        }
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet result = new BitSet();
+        for (int id : ids) {
+            result.set(id);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2019 Stefan Zeller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ch.docksnet.utils.lcom;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StronglyConnectedComponentsTest {
+
+    @Test
+    public void find_components() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(6, new int[][]{{0, 1}, {1, 2}, {2, 0}, {2, 3}, {3, 4}, {4, 3}});
+
+        StronglyConnectedComponents sut = new StronglyConnectedComponents(graph);
+
+        assertEquals(3, sut.getComponentCount());
+        assertEquals(sut.getComponentOf(0), sut.getComponentOf(2));
+        assertEquals(sut.getComponentOf(3), sut.getComponentOf(4));
+        assertNotEquals(sut.getComponentOf(0), sut.getComponentOf(3));
+        assertEquals(3, sut.getComponentSize(sut.getComponentOf(1)));
+        assertEquals(1, sut.getComponentSize(sut.getComponentOf(5)));
+    }
+
+    @Test
+    public void edges_lead_to_lower_components() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(5, new int[][]{{0, 1}, {1, 2}, {3, 1}, {4, 3}});
+
+        StronglyConnectedComponents sut = new StronglyConnectedComponents(graph);
+
+        assertTrue(sut.getComponentOf(0) > sut.getComponentOf(1));
+        assertTrue(sut.getComponentOf(1) > sut.getComponentOf(2));
+        assertTrue(sut.getComponentOf(4) > sut.getComponentOf(3));
+    }
+
+    @Test
+    public void find_component_of_long_cycle_without_recursion() throws Exception {
+        int size = 100_000;
+        int[][] edges = new int[size][];
+        for (int i = 0; i < size; i++) {
+            edges[i] = new int[]{i, (i + 1) % size};
+        }
+
+        StronglyConnectedComponents sut = new StronglyConnectedComponents(LCOMGraphs.create(size, edges));
+
+        assertEquals(1, sut.getComponentCount());
+    }
+
+    @Test
+    public void count_cycles() throws Exception {
+        LCOMGraph<Integer> graph = LCOMGraphs.create(7,
+                new int[][]{{0, 1}, {1, 0}, {1, 2}, {2, 3}, {3, 4}, {4, 2}, {5, 5}, {5, 6}});
+
+        StronglyConnectedComponents sut = new StronglyConnectedComponents(graph);
+
+        assertEquals(3, sut.getCycleCount());
+        BitSet nodesInCycles = sut.getNodesInCycles();
+        assertEquals(6, nodesInCycles.cardinality());
+        assertFalse(nodesInCycles.get(6));
+    }
+
+}